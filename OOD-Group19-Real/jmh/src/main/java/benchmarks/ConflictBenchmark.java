@@ -0,0 +1,75 @@
+package benchmarks;
+
+import Model.Timetable.ScheduledSession;
+import controllers.ConflictAudit;
+import controllers.TimetableController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conflict checks: TimetableService.checkConflicts and addSession for 1000
+ * random sessions, and the whole-timetable audit behind
+ * TimetableController.findRoomConflicts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ConflictBenchmark {
+
+    /** The random sessions, and a controller over the generated timetable. */
+    @State(Scope.Thread)
+    public static class Probes {
+        List<ScheduledSession> sessions;
+        TimetableController controller;
+
+        @Setup(Level.Trial)
+        public void setUp(Dataset d) {
+            sessions = d.randomSessions(1000);
+            controller = new TimetableController(d.service, d.data);
+        }
+    }
+
+    /** Loads the generated timetable back before each addSession run, so every run adds to the same sessions. */
+    @State(Scope.Thread)
+    public static class Reloaded {
+        @Setup(Level.Invocation)
+        public void reload(Dataset d) {
+            d.service.loadSessions(d.timetable);
+        }
+    }
+
+    @Benchmark
+    public void checkConflicts(Dataset d, Probes p, Blackhole bh) {
+        for (ScheduledSession s : p.sessions) bh.consume(d.service.checkConflicts(s));
+    }
+
+    @Benchmark
+    public void addSession(Dataset d, Probes p, Reloaded r, Blackhole bh) {
+        for (ScheduledSession s : p.sessions) bh.consume(d.service.addSession(s));
+    }
+
+    @Benchmark
+    public List<String> findRoomConflicts(Probes p) {
+        return p.controller.findRoomConflicts();
+    }
+
+    @Benchmark
+    public ConflictAudit auditConflicts(Probes p) {
+        return p.controller.auditConflicts();
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import Model.Academic.Module;
+import Model.Timetable.ScheduledSession;
+import Model.Timetable.Timeslot;
+import Model.Timetable.TimetableService;
+import controllers.DataManager;
+import controllers.TimetableGenerator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The input shared by the benchmarks: the sample data copied "copies" times
+ * (see SampleData), written out as CSV files in a temporary folder, with a
+ * GREEDY timetable generated for it and loaded into a TimetableService.
+ *
+ * Run the benchmarks from the project root so the sample data is found.
+ */
+@State(Scope.Benchmark)
+public class Dataset {
+
+    static final long SEED = 42;
+    private static final String[] DAYS = {"MON", "TUE", "WED", "THU", "FRI"};
+
+    /** How many copies of the sample data to use. */
+    @Param({"1", "10"})
+    public int copies;
+
+    DataManager data;
+    TimetableService service;
+    List<ScheduledSession> timetable;
+    File dir;
+    String timetableCsv;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        data = SampleData.scaled(copies);
+        dir = Files.createTempDirectory("timetable-jmh").toFile();
+        SampleData.writeCsv(data, dir);
+        timetableCsv = new File(dir, "generated_timetable.csv").getPath();
+
+        service = new TimetableService();
+        new TimetableGenerator(data, service, SEED, TimetableGenerator.Engine.GREEDY).generateAndLog(timetableCsv);
+        timetable = new ArrayList<>(data.sessions);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    /** @return the path of one of the CSV files written for this dataset */
+    String file(String name) {
+        return new File(dir, name).getPath();
+    }
+
+    /**
+     * Makes sessions for random modules, lecturers, rooms and hours; some clash
+     * with the timetable and some do not.
+     *
+     * @param count how many sessions to make
+     * @return the sessions, the same for every run
+     */
+    List<ScheduledSession> randomSessions(int count) {
+        Random random = new Random(SEED);
+        List<ScheduledSession> sessions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Module m = data.modules.get(random.nextInt(data.modules.size()));
+            sessions.add(new ScheduledSession(m,
+                    data.lecturers.get(random.nextInt(data.lecturers.size())),
+                    data.rooms.get(random.nextInt(data.rooms.size())),
+                    new Timeslot(DAYS[random.nextInt(DAYS.length)], 9 + random.nextInt(9), 1),
+                    random.nextBoolean() ? "ALL" : "G" + (1 + random.nextInt(2))));
+        }
+        return sessions;
+    }
+}
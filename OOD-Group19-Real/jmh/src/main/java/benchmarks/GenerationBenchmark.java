@@ -0,0 +1,41 @@
+package benchmarks;
+
+import controllers.TimetableGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TimetableGenerator with each engine: the search on its own, and
+ * generateAndLog, which also writes the timetable and makes it the current one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class GenerationBenchmark {
+
+    @Benchmark
+    public TimetableGenerator.Result searchGreedy(Dataset d) {
+        return new TimetableGenerator(d.data, d.service, Dataset.SEED, TimetableGenerator.Engine.GREEDY).generate();
+    }
+
+    @Benchmark
+    public TimetableGenerator.Result searchDsatur(Dataset d) {
+        return new TimetableGenerator(d.data, d.service, Dataset.SEED, TimetableGenerator.Engine.DSATUR).generate();
+    }
+
+    @Benchmark
+    public int generateAndLogGreedy(Dataset d) {
+        new TimetableGenerator(d.data, d.service, Dataset.SEED, TimetableGenerator.Engine.GREEDY)
+                .generateAndLog(d.timetableCsv);
+        return d.data.sessions.size();
+    }
+}
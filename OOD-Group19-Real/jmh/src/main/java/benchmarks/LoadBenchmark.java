@@ -0,0 +1,46 @@
+package benchmarks;
+
+import Model.Timetable.ScheduledSession;
+import controllers.DataManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataManager.load* for each CSV file of a dataset, into a fresh DataManager.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class LoadBenchmark {
+
+    @Benchmark
+    public DataManager loadEntities(Dataset d) {
+        DataManager fresh = new DataManager();
+        fresh.loadStudents(d.file("students.csv"));
+        fresh.loadLecturers(d.file("lecturers.csv"));
+        fresh.loadRooms(d.file("rooms.csv"));
+        fresh.loadModules(d.file("modules.csv"));
+        fresh.loadProgrammes(d.file("programmes.csv"));
+        return fresh;
+    }
+
+    @Benchmark
+    public List<ScheduledSession> loadSessions(Dataset d) {
+        return d.data.loadSessions(d.timetableCsv);
+    }
+
+    @Benchmark
+    public List<ScheduledSession> loadSessionsParallel(Dataset d) {
+        return d.data.loadSessionsParallel(d.timetableCsv);
+    }
+}
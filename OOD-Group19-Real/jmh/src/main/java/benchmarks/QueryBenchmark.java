@@ -0,0 +1,70 @@
+package benchmarks;
+
+import Model.Academic.Module;
+import Model.People.Lecturer;
+import Model.People.Student;
+import Model.Room.Room;
+import controllers.TimetableController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The controller's timetable queries, each one asked for every student,
+ * lecturer, module, room or course of the dataset.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class QueryBenchmark {
+
+    @State(Scope.Thread)
+    public static class Controller {
+        TimetableController controller;
+
+        @Setup(Level.Trial)
+        public void setUp(Dataset d) {
+            controller = new TimetableController(d.service, d.data);
+        }
+    }
+
+    @Benchmark
+    public void student(Dataset d, Controller c, Blackhole bh) {
+        for (Student s : d.data.students) bh.consume(c.controller.getTimetableForStudent(s, 1));
+    }
+
+    @Benchmark
+    public void lecturer(Dataset d, Controller c, Blackhole bh) {
+        for (Lecturer l : d.data.lecturers) bh.consume(c.controller.getTimetableForLecturer(l));
+    }
+
+    @Benchmark
+    public void module(Dataset d, Controller c, Blackhole bh) {
+        for (Module m : d.data.modules) bh.consume(c.controller.getTimetableForModule(m.getModuleCode()));
+    }
+
+    @Benchmark
+    public void room(Dataset d, Controller c, Blackhole bh) {
+        for (Room r : d.data.rooms) bh.consume(c.controller.getTimetableForRoom(r.getRoomId()));
+    }
+
+    @Benchmark
+    public void courseYear(Dataset d, Controller c, Blackhole bh) {
+        for (Module m : d.data.modules) {
+            bh.consume(c.controller.getTimetableForCourseYear(m.getProgrammeId(), m.getYear(), m.getSemester()));
+        }
+    }
+}
@@ -1,48 +1,136 @@
 package Main;
 
+import controllers.ConflictAudit;
 import controllers.DataManager;
+import controllers.DataSnapshot;
+import controllers.MultiStartGenerator;
+import controllers.StartupPipeline;
+import controllers.TimetableCache;
 import controllers.TimetableController;
 import controllers.TimetableGenerator;
+import controllers.TimetableOptimizer;
 import Model.Timetable.TimetableService;
 import View.UserInterface;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
 public class Main {
 
+    /** Binary copy of the loaded data, used while it is newer than every CSV file below. */
+    private static final String SNAPSHOT = "OOD-Group19-Real/data/timetable.snapshot";
+    private static final String TIMETABLE = "OOD-Group19-Real/data/generated_timetable.csv";
+    /** Fingerprint of the modules, rooms, lecturers and settings the timetable was generated from. */
+    private static final String FINGERPRINT = "OOD-Group19-Real/data/generated_timetable.fingerprint";
+    private static final String[] CSV_FILES = {
+            "OOD-Group19-Real/data/students.csv",
+            "OOD-Group19-Real/data/lecturers.csv",
+            "OOD-Group19-Real/data/rooms.csv",
+            "OOD-Group19-Real/data/modules.csv",
+            "OOD-Group19-Real/data/programmes.csv",
+            "OOD-Group19-Real/data/admins.csv"
+    };
+
     /**
      * The entry point of the UL Timetabling System.
      *
-     * This method loads all required CSV data, generates an automatic timetable,
-     * checks for any room clashes, and finally starts the command-line interface
-     * so the user can interact with the system.
+     * This method loads all required CSV data (independent files in parallel),
+     * generates an automatic timetable and improves it for a fixed time, or
+     * reloads the last one if its inputs have not changed since, checks
+     * for any room, lecturer or cohort clashes, prints how long each start-up
+     * stage took, and finally starts the command-line interface so the user can
+     * interact with the system.
      */
     public static void main(String[] args) {
 
         DataManager datamanager = new DataManager();
         TimetableService service = new TimetableService();
+        StartupPipeline startup = new StartupPipeline();
+
+        // a snapshot newer than every CSV file replaces all of the loads below
+        boolean fromSnapshot = DataSnapshot.isFresh(SNAPSHOT, CSV_FILES)
+                && startup.call("snapshot", () -> datamanager.loadSnapshot(SNAPSHOT));
+
+        if (!fromSnapshot) {
+            // each file fills its own list, so they can all be read at the same time
+            startup.load("students", () -> datamanager.loadStudents("OOD-Group19-Real/data/students.csv"));
+            startup.load("lecturers", () -> datamanager.loadLecturers("OOD-Group19-Real/data/lecturers.csv"));
+            startup.load("rooms", () -> datamanager.loadRooms("OOD-Group19-Real/data/rooms.csv"));
+            startup.load("modules", () -> datamanager.loadModules("OOD-Group19-Real/data/modules.csv"));
+            startup.load("programmes", () -> datamanager.loadProgrammes("OOD-Group19-Real/data/programmes.csv"));
+            startup.load("admins", () -> datamanager.loadAdmins("OOD-Group19-Real/data/admins.csv"));
+        }
 
-        datamanager.loadStudents("OOD-Group19-Real/data/students.csv");
-        datamanager.loadLecturers("OOD-Group19-Real/data/lecturers.csv");
-        datamanager.loadRooms("OOD-Group19-Real/data/rooms.csv");
-        datamanager.loadModules("OOD-Group19-Real/data/modules.csv");
-        datamanager.loadProgrammes("OOD-Group19-Real/data/programmes.csv");
-        datamanager.loadAdmins("OOD-Group19-Real/data/admins.csv");
+        // generation only needs modules, rooms and lecturers
+        startup.await("modules", "rooms", "lecturers");
+        // one seeded run per core; set timetable.seed to repeat an earlier start-up
+        TimetableGenerator.Engine engine = TimetableGenerator.Engine.valueOf(
+                System.getProperty("timetable.generatorEngine", "GREEDY").toUpperCase(Locale.ROOT));
+        int runs = Integer.getInteger("timetable.generatorRuns", Runtime.getRuntime().availableProcessors());
+        // the optimiser is opt-in: set timetable.optimiseMillis to give it a time budget
+        long optimiseMillis = Long.getLong("timetable.optimiseMillis", 0);
 
-        TimetableGenerator generator = new TimetableGenerator(datamanager, service);
-        generator.generateAndLog("OOD-Group19-Real/data/generated_timetable.csv");
+        // the last timetable is kept while the modules, rooms, lecturers and settings are the same
+        String fingerprint = startup.call("fingerprint", () -> TimetableCache.fingerprint(datamanager,
+                engine + " " + runs + " " + optimiseMillis + " " + System.getProperty("timetable.seed", "")));
+        boolean cached = !Boolean.getBoolean("timetable.regenerate")
+                && TimetableCache.matches(TIMETABLE, FINGERPRINT, fingerprint)
+                && startup.call("load timetable", () -> TimetableCache.load(datamanager, service, TIMETABLE));
+
+        if (!cached) {
+            MultiStartGenerator generator = new MultiStartGenerator(datamanager, service, engine);
+            long seed = Long.getLong("timetable.seed", new Random().nextLong());
+            TimetableGenerator.Result best = startup.call("generate", () -> generator.generateBest(runs, seed));
+            System.out.println("Best of " + runs + " " + engine + " runs (base seed " + seed + "): " + best);
+
+            // then improve gaps, late classes, lecturer days and room sizes for a fixed time
+            TimetableGenerator.Result timetable = (optimiseMillis > 0)
+                    ? optimise(startup, datamanager, best, optimiseMillis) : best;
+            startup.run("save timetable", () -> {
+                TimetableCache.invalidate(FINGERPRINT);
+                generator.commit(timetable, TIMETABLE);
+                TimetableCache.save(FINGERPRINT, fingerprint);
+            });
+        }
 
         TimetableController controller = new TimetableController(service, datamanager);
 
-        var conflicts = controller.findRoomConflicts();
+        startup.run("audit", () -> {
+            ConflictAudit audit = controller.auditConflicts();
+            printConflicts("room", audit.getRoomConflicts());
+            printConflicts("lecturer", audit.getLecturerConflicts());
+            printConflicts("cohort", audit.getCohortConflicts());
+        });
+
+        // logins need every user account loaded
+        startup.awaitAll();
+        if (!fromSnapshot) {
+            startup.run("save snapshot", () -> datamanager.saveSnapshot(SNAPSHOT));
+        }
+        System.out.println(startup.report());
+
+        UserInterface ui = new UserInterface(controller, datamanager);
+        ui.start();
+    }
+
+    private static TimetableGenerator.Result optimise(StartupPipeline startup, DataManager datamanager,
+                                                      TimetableGenerator.Result best, long optimiseMillis) {
+        TimetableOptimizer optimizer = new TimetableOptimizer(datamanager.rooms, best.getSeed());
+        TimetableGenerator.Result timetable = startup.call("optimise", () -> optimizer.optimise(best, optimiseMillis));
+        optimizer.getProgress().forEach(line -> System.out.println("  " + line));
+        System.out.println("Optimised " + optimizer + ": " + timetable);
+        return timetable;
+    }
+
+    private static void printConflicts(String kind, List<String> conflicts) {
         if (conflicts.isEmpty()) {
-            System.out.println("No room conflicts found.");
+            System.out.println("No " + kind + " conflicts found.");
         } else {
-            System.out.println("Room conflicts detected:");
+            System.out.println(Character.toUpperCase(kind.charAt(0)) + kind.substring(1) + " conflicts detected:");
             for (String c : conflicts) {
                 System.out.println(c);
             }
         }
-
-        UserInterface ui = new UserInterface(controller, datamanager);
-        ui.start();
     }
 }
@@ -1,5 +1,7 @@
 package Model.Academic;
 
+import Model.Timetable.KeyDictionary;
+
 
 /**
  * Represents a module, each module has a name, code, and
@@ -11,6 +13,8 @@ public class Module {
     private String moduleName;
     private String moduleCode;
     private String programmeId;
+    private int moduleKey = KeyDictionary.NONE;
+    private int programmeKey = KeyDictionary.NONE;
     private int year;
     private int semester;
     private int LecHours;
@@ -26,6 +30,8 @@ public class Module {
         this.moduleName = moduleName;
         this.moduleCode = moduleCode;
         this.programmeId = programmeId;
+        this.moduleKey = KeyDictionary.MODULES.intern(moduleCode);
+        this.programmeKey = KeyDictionary.PROGRAMMES.intern(programmeId);
         this.year = year;
         this.semester = semester;
         this.LecHours = LecHours;
@@ -39,9 +45,11 @@ public class Module {
 
     public void setModuleCode(String moduleCode) {
         this.moduleCode = moduleCode;
+        this.moduleKey = KeyDictionary.MODULES.intern(moduleCode);
     }
     public void setProgrammeId(String programmeId) {
         this.programmeId = programmeId;
+        this.programmeKey = KeyDictionary.PROGRAMMES.intern(programmeId);
     }
 
     public void setLecHour(int LecHours) {
@@ -77,6 +85,16 @@ public class Module {
         return programmeId;
     }
 
+    /** @return the module code as a key from KeyDictionary.MODULES */
+    public int getModuleKey() {
+        return moduleKey;
+    }
+
+    /** @return the programme ID as a key from KeyDictionary.PROGRAMMES */
+    public int getProgrammeKey() {
+        return programmeKey;
+    }
+
 
     public int getLabHours() {
         return LabHours;
@@ -8,8 +8,8 @@ public class Admin extends User {
 
     private String adminId;
     
-    public Admin(String adminId, String name, String email, String password) {
-        super(adminId, name, email, password, "Admin");
+    public Admin(String adminId, String name, String email, Credential credential) {
+        super(adminId, name, email, credential, "Admin");
         this.adminId = adminId;
     }
 
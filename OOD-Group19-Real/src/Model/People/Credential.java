@@ -0,0 +1,131 @@
+package Model.People;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * A user's password as a random salt and a PBKDF2 hash; the password itself
+ * is never kept.
+ *
+ * A credential is stored as one string, "pbkdf2$iterations$salt$hash" with the
+ * salt and hash in Base64, in the CSV files, the change journals and the
+ * snapshot. The iteration count is part of the string, so changing the cost
+ * for new passwords with -Dtimetable.hashIterations=N does not break the
+ * ones already stored. Checking a password always costs exactly one hash.
+ */
+public final class Credential {
+
+    /** PBKDF2 iteration count for new passwords, can be overridden with -Dtimetable.hashIterations=N. */
+    public static final int DEFAULT_ITERATIONS = Integer.getInteger("timetable.hashIterations", 1000);
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+    private final byte[] salt;
+    private final byte[] hash;
+
+    private Credential(int iterations, byte[] salt, byte[] hash) {
+        this.iterations = iterations;
+        this.salt = salt;
+        this.hash = hash;
+    }
+
+    /**
+     * Hashes a new password with a random salt and the default cost.
+     *
+     * @param password the password in plain text
+     * @return the credential
+     */
+    public static Credential hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return hash(password, salt, DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Hashes a password with a given salt and cost, e.g. to make the same
+     * credential again from the same seed.
+     *
+     * @param password   the password in plain text
+     * @param salt       the 16 byte salt
+     * @param iterations the PBKDF2 iteration count, higher is slower but harder to brute force
+     * @return the credential
+     */
+    public static Credential hash(String password, byte[] salt, int iterations) {
+        if (salt.length != SALT_BYTES) throw new IllegalArgumentException("salt must be " + SALT_BYTES + " bytes");
+        if (iterations < 1) throw new IllegalArgumentException("iterations must be positive");
+        return new Credential(iterations, salt.clone(), pbkdf2(password, salt, iterations));
+    }
+
+    /**
+     * Checks if a stored value is an encoded credential rather than a plain text
+     * password, e.g. a row from a CSV file written before passwords were hashed.
+     *
+     * @param stored the stored value
+     * @return true if decode can read it
+     */
+    public static boolean isEncoded(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    /**
+     * Reads a credential written by encode.
+     *
+     * @param stored the encoded credential
+     * @return the credential
+     * @throws IllegalArgumentException if the value is not an encoded credential
+     */
+    public static Credential decode(String stored) {
+        String[] parts = isEncoded(stored) ? stored.split("\\$") : new String[0];
+        if (parts.length != 4) throw new IllegalArgumentException("Not an encoded credential");
+        Base64.Decoder base64 = Base64.getDecoder();
+        byte[] salt = base64.decode(parts[2]);
+        byte[] hash = base64.decode(parts[3]);
+        if (salt.length != SALT_BYTES || hash.length != HASH_BITS / 8) {
+            throw new IllegalArgumentException("Bad credential length");
+        }
+        return new Credential(Integer.parseInt(parts[1]), salt, hash);
+    }
+
+    /** @return the credential as "pbkdf2$iterations$salt$hash", safe to store */
+    public String encode() {
+        Base64.Encoder base64 = Base64.getEncoder();
+        return PREFIX + iterations + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against the stored hash with one PBKDF2 run and a
+     * constant time comparison.
+     *
+     * @param password the password entered
+     * @return true if it is the password this credential was made from
+     */
+    public boolean matches(String password) {
+        if (password == null) return false;
+        return MessageDigest.isEqual(hash, pbkdf2(password, salt, iterations));
+    }
+
+    /** @return the PBKDF2 iteration count of this credential */
+    public int getIterations() {
+        return iterations;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Password hashing is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
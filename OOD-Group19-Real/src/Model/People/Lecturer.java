@@ -1,10 +1,13 @@
 package Model.People;
 
+import Model.Timetable.KeyDictionary;
+
 import java.util.ArrayList;
 import java.util.List;
 
 public class Lecturer extends User {
     private final String department;
+    private final int lecturerKey;
     private String role;
     private List<String> modules;
 
@@ -14,13 +17,14 @@ public class Lecturer extends User {
      * @param id the lecturer's ID
      * @param name the lecturer's name
      * @param email the lecturer's email
-     * @param password the lecturer's password
+     * @param credential the salted hash of the lecturer's password
      * @param department the lecturer's department
      */
 
-    public Lecturer(String id, String name, String email, String password, String department) {
-        super(id, name, email, password, "Lecturer"); 
+    public Lecturer(String id, String name, String email, Credential credential, String department) {
+        super(id, name, email, credential, "Lecturer"); 
         this.department = department;
+        this.lecturerKey = KeyDictionary.LECTURERS.intern(id);
         this.modules = new ArrayList<>();
     }
 
@@ -43,6 +47,11 @@ public class Lecturer extends User {
         return this.id;
     }
 
+    /** @return the lecturer ID as a key from KeyDictionary.LECTURERS */
+    public int getLecturerKey() {
+        return lecturerKey;
+    }
+
     /**
      * Prints the lecturer's timetable details.
      */
@@ -1,7 +1,7 @@
 package Model.People;
 /**
  *  Represents a student in UL and their key details such as
- * student ID, name, email, password, course programme ID
+ * student ID, name, email, password hash, course programme ID
  * and year of study.
  */
 
@@ -10,9 +10,9 @@ public class Student extends User {
     private int year;
     private String groupId;
 
-    public Student(String id, String name, String email, String password,
+    public Student(String id, String name, String email, Credential credential,
                    String programmeID, int year, String groupId) {
-        super(id, name, email, password, "Student");
+        super(id, name, email, credential, "Student");
         this.programmeID = programmeID;
         this.year = year;
         this.groupId = groupId;
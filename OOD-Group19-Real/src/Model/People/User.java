@@ -17,8 +17,8 @@ public abstract class User {
     /** UL email address of the user. */
     protected String email;
 
-    /** User's password. */
-    protected String password;
+    /** User's password, kept only as a salted hash. */
+    protected Credential credential;
 
     /** The type of user: "Student", "Lecturer", or "Admin". */
     protected String userType;
@@ -28,15 +28,15 @@ public abstract class User {
      * @param id   user's specific UL id
      * @param name  user';s name
      * @param email  user's UL email
-     * @param password user's password in which they selected
+     * @param credential the salted hash of the password they selected
      * @param userType (Lecturer, student, admin)
      */
-    public User(String id, String name, String email, String password,
+    public User(String id, String name, String email, Credential credential,
                 String userType) {
         this.id = id;
         this.name = name;
         this.email = email;
-        this.password = password;
+        this.credential = credential;
         this.userType = userType;
     }
 
@@ -64,8 +64,12 @@ public abstract class User {
         return name;
     }
 
-    public String getPassword() {
-        return password;
+    /**
+     *
+     * @return the salted hash of the user's password, never the password itself
+     */
+    public Credential getCredential() {
+        return credential;
     }
 
     /**
@@ -75,8 +79,7 @@ public abstract class User {
     public String getUserType() {
         return userType;
     }
-    // password doesn't get a getter because of security and encapsulation
-    // no other class or user should be able to read it directly once its stored
+    // the password itself is never stored, only its hash, so there is nothing to read back
 
     /**
      * Represents a login system where the user is prompted to
@@ -87,10 +90,10 @@ public abstract class User {
      * @return true if login details match, false if no match
      */
     public boolean idLogin(String idEntered, String passwordEntered) {
-        if (id == null || password == null) {
+        if (id == null || credential == null) {
             return false;
         }
-        return this.id.equals(idEntered) && password.equals(passwordEntered); //Checks if inputted password matches user password;
+        return this.id.equals(idEntered) && credential.matches(passwordEntered); //Checks if inputted password matches user password;
     }
 
     /**
@@ -1,5 +1,7 @@
 package Model.Room;
 
+import Model.Timetable.KeyDictionary;
+
 /**
  * Represents a teaching room in the university and
  * each room has a room ID, seating capacity and indicates whether the room is a lab or a classroom.
@@ -8,6 +10,7 @@ public class Room {
 
 
     private String roomId;
+    private int roomKey;
     private String type;
     private int capacity;
     private String building;
@@ -16,6 +19,7 @@ public class Room {
 
     public Room(String roomId, String type, int capacity, String building) {
         this.roomId = roomId;
+        this.roomKey = KeyDictionary.ROOMS.intern(roomId);
         this.type = type;
         this.capacity = capacity;
         this.building = building;
@@ -29,6 +33,12 @@ public class Room {
 
     public void setRoomId(String roomId) {
         this.roomId = roomId;
+        this.roomKey = KeyDictionary.ROOMS.intern(roomId);
+    }
+
+    /** @return the room ID as a key from KeyDictionary.ROOMS */
+    public int getRoomKey() {
+        return roomKey;
     }
 
 
@@ -0,0 +1,99 @@
+package Model.Timetable;
+
+import Model.Academic.Module;
+
+/**
+ * Packs the course (programme, year and semester) and cohort (a course plus a
+ * student group) of a session into a long, the same way for every clash check,
+ * the conflict audit, the generators and the optimiser, and counts the idle
+ * hours of a cohort's week the same way for the generators and the optimiser.
+ *
+ * A course key is the programme key in bits 16-38, the year in bits 8-15 and
+ * the semester in bits 0-7. A cohort key is the course key shifted up by 24
+ * bits with the group key in bits 0-23. The fields never share bits and every
+ * key is at least 0, so two different cohorts never get the same key; a value
+ * that does not fit its field is rejected rather than folded onto another.
+ */
+public final class Cohorts {
+
+    /** Returned for a session without a programme, which belongs to no course. */
+    public static final long NONE = -1L;
+
+    private static final int PROGRAMME_BITS = 23;
+    private static final int GROUP_BITS = 24;
+
+    private Cohorts() { }
+
+    /**
+     * Gets the key of a module's programme, year and semester.
+     *
+     * @param m the module
+     * @return the course key, or NONE if the module has no programme
+     */
+    public static long courseKey(Module m) {
+        if (m == null || m.getProgrammeKey() == KeyDictionary.NONE) return NONE;
+        check(m.getProgrammeKey(), PROGRAMME_BITS, "programme key");
+        check(m.getYear(), 8, "year");
+        check(m.getSemester(), 8, "semester");
+        return ((long) m.getProgrammeKey() << 16) | (m.getYear() << 8) | m.getSemester();
+    }
+
+    /**
+     * Gets the key of a module's course together with a student group.
+     *
+     * @param m        the module
+     * @param groupKey the group as a KeyDictionary.GROUPS key; NONE counts as "ALL"
+     * @return the cohort key, or NONE if the module has no programme
+     */
+    public static long cohortKey(Module m, int groupKey) {
+        return cohortKey(courseKey(m), groupKey);
+    }
+
+    /**
+     * Gets the key of a course together with a student group.
+     *
+     * @param course   a key from courseKey, or NONE
+     * @param groupKey the group as a KeyDictionary.GROUPS key; NONE counts as "ALL"
+     * @return the cohort key, or NONE if the course is NONE
+     */
+    public static long cohortKey(long course, int groupKey) {
+        if (course == NONE) return NONE;
+        int group = (groupKey == KeyDictionary.NONE) ? KeyDictionary.ALL_GROUPS : groupKey;
+        check(group, GROUP_BITS, "group key");
+        return (course << GROUP_BITS) | group;
+    }
+
+    /**
+     * Counts the free hours between the first and last class of every day of a week.
+     *
+     * @param week the busy hours, as made by OccupancyIndex.slotMask
+     * @return the idle hours over the whole week
+     */
+    public static int idleHours(long week) {
+        int idle = 0;
+        int dayBits = (1 << OccupancyIndex.HOURS_PER_DAY) - 1;
+        for (int d = 0; d < OccupancyIndex.DAYS.length; d++) {
+            idle += idleHoursOfDay((int) (week >>> (d * OccupancyIndex.HOURS_PER_DAY)) & dayBits);
+        }
+        return idle;
+    }
+
+    /**
+     * Counts the free hours between the first and last class of one day.
+     *
+     * @param day the busy hours of the day, bit 0 being OccupancyIndex.FIRST_HOUR
+     * @return the idle hours, or 0 for a day without classes
+     */
+    public static int idleHoursOfDay(int day) {
+        if (day == 0) return 0;
+        int first = Integer.numberOfTrailingZeros(day);
+        int last = 31 - Integer.numberOfLeadingZeros(day);
+        return last - first + 1 - Integer.bitCount(day);
+    }
+
+    private static void check(int value, int bits, String what) {
+        if (value < 0 || value >= (1 << bits)) {
+            throw new IllegalArgumentException(what + " " + value + " does not fit in " + bits + " bits");
+        }
+    }
+}
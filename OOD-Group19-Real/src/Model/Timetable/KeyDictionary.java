@@ -0,0 +1,103 @@
+package Model.Timetable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every distinct identifier of one kind (day, group, room ID, ...) a
+ * small integer key, so the clash checks compare ints instead of strings.
+ *
+ * Keys are dense, starting at 0, and ignore case and surrounding spaces, the
+ * same way the rest of the system matches IDs. A model object works out its
+ * keys once when it is created, i.e. while DataManager loads the CSV files;
+ * the strings are still kept for reading, writing and display.
+ *
+ * There is one shared dictionary per kind of identifier. Days are numbered
+ * MON=0 to FRI=4 to match OccupancyIndex, and group key 0 is always "ALL".
+ *
+ * Only the folded spelling of each identifier is stored, so the dictionary
+ * grows with the number of distinct identifiers and not with the ways they are
+ * written. Known identifiers are looked up without taking a lock, so
+ * generators running on several threads do not queue on the dictionary for
+ * every Timeslot and session they build.
+ */
+public final class KeyDictionary {
+
+    /** Key returned for a null identifier. */
+    public static final int NONE = -1;
+
+    public static final KeyDictionary DAYS = new KeyDictionary("MON", "TUE", "WED", "THU", "FRI");
+    public static final KeyDictionary GROUPS = new KeyDictionary("ALL");
+    public static final KeyDictionary PROGRAMMES = new KeyDictionary();
+    public static final KeyDictionary MODULES = new KeyDictionary();
+    public static final KeyDictionary ROOMS = new KeyDictionary();
+    public static final KeyDictionary LECTURERS = new KeyDictionary();
+
+    /** The group key of sessions attended by every group. */
+    public static final int ALL_GROUPS = 0;
+
+    /** Folded identifier -> key. */
+    private final Map<String, Integer> keys = new ConcurrentHashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    private KeyDictionary(String... preset) {
+        for (String name : preset) intern(name);
+    }
+
+    /**
+     * Gets the key of an identifier, giving it the next free key the first time it is seen.
+     *
+     * @param name the identifier
+     * @return its key, or NONE if the identifier is null
+     */
+    public int intern(String name) {
+        if (name == null) return NONE;
+        Integer key = keys.get(fold(name));
+        return (key != null) ? key : add(name);
+    }
+
+    /**
+     * Gets the key of an identifier without adding it.
+     *
+     * @param name the identifier
+     * @return its key, or NONE if it has never been interned
+     */
+    public int find(String name) {
+        if (name == null) return NONE;
+        Integer key = keys.get(fold(name));
+        return (key == null) ? NONE : key;
+    }
+
+    /**
+     * Gets the identifier a key was given for, as first seen.
+     *
+     * @param key the key
+     * @return the identifier
+     */
+    public synchronized String name(int key) {
+        return names.get(key);
+    }
+
+    /** @return the number of keys handed out, which is one more than the highest key */
+    public synchronized int size() {
+        return names.size();
+    }
+
+    private synchronized int add(String name) {
+        String folded = fold(name);
+        Integer key = keys.get(folded);
+        if (key == null) {
+            key = names.size();
+            names.add(name.trim());
+            keys.put(folded, key);
+        }
+        return key;
+    }
+
+    private static String fold(String name) {
+        return name.trim().toUpperCase(Locale.ROOT);
+    }
+}
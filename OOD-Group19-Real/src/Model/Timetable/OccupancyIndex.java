@@ -0,0 +1,205 @@
+package Model.Timetable;
+
+import Model.Academic.Module;
+import Model.People.Lecturer;
+import Model.Room.Room;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps a week bitmap of booked hours for every room, lecturer, student group
+ * and programme cohort so that a clash check is a handful of AND operations
+ * instead of a scan over every placed session.
+ *
+ * The teaching week is MON-FRI, 9:00 to 18:00, which is 45 one hour slots and
+ * fits in a single long. Bit (day * 9 + hour - 9) is set when that hour is taken.
+ * The clash rules are the same as ScheduledSession.sameTimeWith plus the
+ * programme/year/semester cohort rule used by the TimetableGenerator.
+ * A booked session that runs past the grid, e.g. 17:00 for two hours, still
+ * marks the hours it has inside it.
+ *
+ * Rooms, lecturers and groups are looked up by their KeyDictionary keys in
+ * plain arrays, and cohorts by a key packed from the programme key, year,
+ * semester and group key, so no strings are built or compared while placing.
+ */
+public class OccupancyIndex {
+
+    public static final String[] DAYS = {"MON", "TUE", "WED", "THU", "FRI"};
+    public static final int FIRST_HOUR = 9;
+    public static final int HOURS_PER_DAY = 9;
+
+    private long[] rooms = new long[16];
+    private long[] lecturers = new long[16];
+    private long[] groups = new long[4];
+    private final Map<Long, Long> cohorts = new HashMap<>();
+
+    /**
+     * Converts a day name into its position in the week.
+     *
+     * @param day the day, e.g. "MON"
+     * @return 0 for Monday up to 4 for Friday, or -1 if the day is not a teaching day
+     */
+    public static int dayIndex(String day) {
+        int key = KeyDictionary.DAYS.find(day);
+        return (key < DAYS.length) ? key : -1;
+    }
+
+    /**
+     * Checks whether a timeslot lies fully inside the bitmap week.
+     * Sessions outside the grid cannot be represented and need a normal overlap check.
+     *
+     * @param t the timeslot to check
+     * @return true if every hour of the timeslot has a bit
+     */
+    public static boolean fitsGrid(Timeslot t) {
+        if (t == null || t.getDayKey() < 0 || t.getDayKey() >= DAYS.length) return false;
+        int end = t.getStartHour() + t.getDuration();
+        return t.getDuration() > 0 && t.getStartHour() >= FIRST_HOUR
+                && end <= FIRST_HOUR + HOURS_PER_DAY;
+    }
+
+    /**
+     * Builds the bitmap for a run of hours on one day.
+     *
+     * @param day       the day index (0-4)
+     * @param startHour the first hour, e.g. 9
+     * @param duration  the number of hours
+     * @return the week bitmap with those hours set
+     */
+    public static long mask(int day, int startHour, int duration) {
+        long hours = (1L << duration) - 1;
+        return hours << (day * HOURS_PER_DAY + startHour - FIRST_HOUR);
+    }
+
+    /**
+     * Builds the bitmap for a timeslot, or 0 if it does not fit the grid.
+     *
+     * @param t the timeslot
+     * @return the week bitmap covering the timeslot
+     */
+    public static long slotMask(Timeslot t) {
+        if (!fitsGrid(t)) return 0L;
+        return mask(t.getDayKey(), t.getStartHour(), t.getDuration());
+    }
+
+    /**
+     * Builds the bitmap for the hours of a timeslot that lie inside the grid,
+     * so a session that starts before 9:00 or ends after 18:00 still blocks the
+     * hours it shares with the grid.
+     *
+     * @param t the timeslot
+     * @return the week bitmap of its hours on the grid, or 0 if it has none
+     */
+    public static long gridMask(Timeslot t) {
+        if (t == null || t.getDayKey() < 0 || t.getDayKey() >= DAYS.length) return 0L;
+        int start = Math.max(t.getStartHour(), FIRST_HOUR);
+        int end = Math.min(t.getStartHour() + t.getDuration(), FIRST_HOUR + HOURS_PER_DAY);
+        if (start >= end) return 0L;
+        return mask(t.getDayKey(), start, end - start);
+    }
+
+    /** Removes every booking from the index. */
+    public void clear() {
+        Arrays.fill(rooms, 0L);
+        Arrays.fill(lecturers, 0L);
+        Arrays.fill(groups, 0L);
+        cohorts.clear();
+    }
+
+    /**
+     * Marks the hours of a session as taken for its room, lecturer, group and cohort.
+     *
+     * @param s the session that has been placed
+     */
+    public void add(ScheduledSession s) {
+        long slot = gridMask(s.getTimeslot());
+        if (slot == 0L) return;
+
+        if (s.getRoom() != null) rooms = mark(rooms, s.getRoom().getRoomKey(), slot);
+        if (s.getLecturer() != null) lecturers = mark(lecturers, s.getLecturer().getLecturerKey(), slot);
+        if (isGroup(s.getGroupKey())) groups = mark(groups, s.getGroupKey(), slot);
+        long cohort = Cohorts.cohortKey(s.getModule(), s.getGroupKey());
+        if (cohort != Cohorts.NONE) cohorts.merge(cohort, slot, (a, b) -> a | b);
+    }
+
+    /**
+     * Gets the hours already taken in a room.
+     *
+     * @param room the room
+     * @return the week bitmap for the room
+     */
+    public long roomMask(Room room) {
+        return get(rooms, room.getRoomKey());
+    }
+
+    /**
+     * Gets every hour that would clash for a module, lecturer and group
+     * regardless of which room is picked.
+     *
+     * @param module   the module being placed
+     * @param lecturer the lecturer teaching it
+     * @param groupId  the student group attending; a group nothing is booked for only adds the lecturer's hours
+     * @return the week bitmap of blocked hours
+     */
+    public long busyMask(Module module, Lecturer lecturer, String groupId) {
+        int groupKey = KeyDictionary.GROUPS.find(groupId);
+        if (groupId != null && groupKey == KeyDictionary.NONE) {
+            // never seen, e.g. a typo: no session has this group, so only the lecturer can be busy
+            return (lecturer == null) ? 0L : get(lecturers, lecturer.getLecturerKey());
+        }
+        return busyMask(module, lecturer, groupKey);
+    }
+
+    /**
+     * Gets every hour that would clash for a module, lecturer and group
+     * regardless of which room is picked.
+     *
+     * @param module   the module being placed
+     * @param lecturer the lecturer teaching it
+     * @param groupKey the student group attending, as a KeyDictionary.GROUPS key
+     * @return the week bitmap of blocked hours
+     */
+    public long busyMask(Module module, Lecturer lecturer, int groupKey) {
+        long busy = 0L;
+        if (lecturer != null) busy |= get(lecturers, lecturer.getLecturerKey());
+        if (isGroup(groupKey)) busy |= get(groups, groupKey);
+
+        long cohort = Cohorts.cohortKey(module, groupKey);
+        if (cohort != Cohorts.NONE) busy |= cohorts.getOrDefault(cohort, 0L);
+        return busy;
+    }
+
+    /**
+     * Checks if a candidate session clashes with anything in the index.
+     *
+     * @param candidate the session to test, which must fit the grid
+     * @return true if the room, lecturer, group or cohort is already busy
+     */
+    public boolean hasConflict(ScheduledSession candidate) {
+        long slot = slotMask(candidate.getTimeslot());
+        if (slot == 0L) return false;
+
+        long busy = busyMask(candidate.getModule(), candidate.getLecturer(), candidate.getGroupKey());
+        if (candidate.getRoom() != null) busy |= roomMask(candidate.getRoom());
+        return (busy & slot) != 0L;
+    }
+
+    /** Groups other than "ALL" clash with the same group in any programme. */
+    private static boolean isGroup(int groupKey) {
+        return groupKey != KeyDictionary.NONE && groupKey != KeyDictionary.ALL_GROUPS;
+    }
+
+    private static long get(long[] masks, int key) {
+        return (key >= 0 && key < masks.length) ? masks[key] : 0L;
+    }
+
+    /** Sets the slot bits for a key, growing the array if the key is new. */
+    private static long[] mark(long[] masks, int key, long slot) {
+        if (key < 0) return masks;
+        if (key >= masks.length) masks = Arrays.copyOf(masks, Math.max(key + 1, masks.length * 2));
+        masks[key] |= slot;
+        return masks;
+    }
+}
@@ -0,0 +1,155 @@
+package Model.Timetable;
+
+import Model.Room.Room;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Finds the smallest free room that seats a group, so small classes do not
+ * take the big lecture theatres that the ALL sessions need.
+ *
+ * The rooms of each type (lab or teaching room) are sorted by capacity, then
+ * by room key. A TreeMap per type gives the first position with at least a
+ * given capacity in O(log n), and a bit set per type and week hour marks which
+ * positions are still free, so the answer is the next set bit from there.
+ * Hours are the 45 slots of the OccupancyIndex week; a session that runs past
+ * it only takes the hours it has inside it.
+ */
+public class RoomIndex {
+
+    private static final int SLOTS = OccupancyIndex.DAYS.length * OccupancyIndex.HOURS_PER_DAY;
+
+    /** [0] teaching rooms, [1] labs, each sorted by capacity. */
+    private final Room[][] sorted = new Room[2][];
+    private final List<NavigableMap<Integer, Integer>> firstWithCapacity = new ArrayList<>();
+    /** free.get(type * SLOTS + slot) has a bit set for every free position. */
+    private final List<BitSet> free = new ArrayList<>();
+    /** Position of each room in its sorted array, by room key, or -1. */
+    private int[] positions = new int[0];
+
+    /**
+     * Builds an index where every room is free at every hour.
+     *
+     * @param rooms the rooms to choose from
+     */
+    public RoomIndex(List<Room> rooms) {
+        for (int type = 0; type < 2; type++) {
+            List<Room> ofType = new ArrayList<>();
+            for (Room room : rooms) {
+                if (room.isLab() == (type == 1)) ofType.add(room);
+            }
+            ofType.sort(Comparator.comparingInt(Room::getCapacity).thenComparingInt(Room::getRoomKey));
+            sorted[type] = ofType.toArray(new Room[0]);
+
+            NavigableMap<Integer, Integer> first = new TreeMap<>();
+            for (int p = sorted[type].length - 1; p >= 0; p--) {
+                first.put(sorted[type][p].getCapacity(), p);
+                int key = sorted[type][p].getRoomKey();
+                if (key >= positions.length) positions = grow(positions, key + 1);
+                positions[key] = p;
+            }
+            firstWithCapacity.add(first);
+
+            for (int slot = 0; slot < SLOTS; slot++) {
+                BitSet all = new BitSet(sorted[type].length);
+                all.set(0, sorted[type].length);
+                free.add(all);
+            }
+        }
+    }
+
+    /**
+     * Builds an index with the hours of some sessions already taken.
+     *
+     * @param rooms    the rooms to choose from
+     * @param sessions sessions whose rooms are booked
+     */
+    public RoomIndex(List<Room> rooms, List<ScheduledSession> sessions) {
+        this(rooms);
+        for (ScheduledSession s : sessions) {
+            book(s);
+        }
+    }
+
+    /**
+     * Finds the smallest room of a type that seats enough students and is free
+     * for a run of hours. Rooms of the same size are taken in room key order.
+     *
+     * @param lab       true for a lab, false for a teaching room
+     * @param capacity  the seats needed
+     * @param day       the day index (0-4)
+     * @param startHour the first hour, e.g. 9
+     * @param duration  the number of hours
+     * @return the room, or null if no room of that type and size is free
+     */
+    public Room smallestFree(boolean lab, int capacity, int day, int startHour, int duration) {
+        int type = lab ? 1 : 0;
+        NavigableMap<Integer, Integer> positionsBySize = firstWithCapacity.get(type);
+        Integer size = positionsBySize.ceilingKey(capacity); // ceilingEntry would copy the entry
+        if (size == null) return null;
+        int firstSlot = slot(day, startHour);
+        if (firstSlot < 0 || startHour + duration > OccupancyIndex.FIRST_HOUR + OccupancyIndex.HOURS_PER_DAY) {
+            return null;
+        }
+
+        BitSet start = free.get(type * SLOTS + firstSlot);
+        for (int p = start.nextSetBit(positionsBySize.get(size)); p >= 0; p = start.nextSetBit(p + 1)) {
+            boolean allFree = true;
+            for (int h = 1; h < duration && allFree; h++) {
+                allFree = free.get(type * SLOTS + firstSlot + h).get(p);
+            }
+            if (allFree) return sorted[type][p];
+        }
+        return null;
+    }
+
+    /**
+     * Marks the room of a session as taken for the session's hours.
+     *
+     * @param s the session that has been placed
+     */
+    public void book(ScheduledSession s) {
+        set(s, false);
+    }
+
+    /**
+     * Marks the room of a session as free again for the session's hours.
+     *
+     * @param s the session that has been removed
+     */
+    public void release(ScheduledSession s) {
+        set(s, true);
+    }
+
+    private void set(ScheduledSession s, boolean isFree) {
+        Room room = s.getRoom();
+        long hours = OccupancyIndex.gridMask(s.getTimeslot());
+        if (room == null || hours == 0L) return;
+        int key = room.getRoomKey();
+        if (key < 0 || key >= positions.length || positions[key] < 0) return;
+        int type = room.isLab() ? 1 : 0;
+        if (positions[key] >= sorted[type].length || sorted[type][positions[key]].getRoomKey() != key) return;
+
+        for (; hours != 0L; hours &= hours - 1) {
+            free.get(type * SLOTS + Long.numberOfTrailingZeros(hours)).set(positions[key], isFree);
+        }
+    }
+
+    private static int slot(int day, int hour) {
+        if (day < 0 || day >= OccupancyIndex.DAYS.length) return -1;
+        if (hour < OccupancyIndex.FIRST_HOUR || hour >= OccupancyIndex.FIRST_HOUR + OccupancyIndex.HOURS_PER_DAY) return -1;
+        return day * OccupancyIndex.HOURS_PER_DAY + hour - OccupancyIndex.FIRST_HOUR;
+    }
+
+    private static int[] grow(int[] array, int size) {
+        int[] bigger = new int[Math.max(size, array.length * 2)];
+        System.arraycopy(array, 0, bigger, 0, array.length);
+        for (int i = array.length; i < bigger.length; i++) bigger[i] = -1;
+        return bigger;
+    }
+}
@@ -16,6 +16,7 @@ public class ScheduledSession {
     private Room room;
     private Timeslot timeslot;
     private String groupId;
+    private int groupKey = KeyDictionary.NONE;
 
     /** Default constructor. */
     public ScheduledSession(){
@@ -36,6 +37,7 @@ public class ScheduledSession {
         this.room = room;
         this.timeslot = timeslot;
         this.groupId = groupId;
+        this.groupKey = KeyDictionary.GROUPS.intern(groupId);
     }
 
     /**
@@ -82,6 +84,13 @@ public class ScheduledSession {
         return groupId;
     }
 
+    /**
+     * @return the group as a key from KeyDictionary.GROUPS, KeyDictionary.ALL_GROUPS for "ALL"
+     */
+    public int getGroupKey() {
+        return groupKey;
+    }
+
     /**
      * Returns a readable formatted version of the timetable entry.
      *
@@ -89,9 +98,9 @@ public class ScheduledSession {
      */
     @Override
     public String toString() {
-        return module.getModuleCode() +
-                "   " + lecturer.getName() +
-                "   " + room.getRoomId() +
+        return (module != null ? module.getModuleCode() : "?") +
+                "   " + (lecturer != null ? lecturer.getName() : "?") +
+                "   " + (room != null ? room.getRoomId() : "?") +
                 "   " + timeslot.toString() +
                 "   Group: " + groupId;
     }
@@ -103,13 +112,9 @@ public class ScheduledSession {
     boolean sameLecturer = (this.lecturer != null && this.lecturer.equals(other.lecturer));
 
     
-    boolean sameGroup = false;
-    if (this.groupId != null && other.groupId != null) {
-        if (!this.groupId.equalsIgnoreCase("ALL")
-                && this.groupId.equalsIgnoreCase(other.groupId)) {
-            sameGroup = true;
-        }
-    }
+    boolean sameGroup = this.groupKey != KeyDictionary.NONE
+            && this.groupKey != KeyDictionary.ALL_GROUPS
+            && this.groupKey == other.groupKey;
 
     return (sameRoom || sameLecturer || sameGroup)
             && this.timeslot.overlaps(other.getTimeslot());
@@ -0,0 +1,279 @@
+package Model.Timetable;
+
+import Model.Academic.Module;
+import Model.People.Lecturer;
+import Model.Room.Room;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A timetable stored column by column in int arrays, for datasets too big to
+ * keep as one ScheduledSession and one Timeslot object per session.
+ *
+ * Every session is a row of seven ints: module, lecturer and room keys, day
+ * key, start hour, duration and group key, all from KeyDictionary. A million
+ * sessions take about 28 MB and no per-session objects, and a scan over one
+ * column reads memory in order. The Module, Lecturer and Room objects are kept
+ * once per key, so a row can still be turned back into a ScheduledSession with
+ * get() when it has to be shown or handed to the rest of the system.
+ *
+ * Row numbers are positions, like list indexes: removing a row moves the rows
+ * after it up by one.
+ */
+public class SessionTable {
+
+    private int size;
+    private int[] module;
+    private int[] lecturer;
+    private int[] room;
+    private int[] day;
+    private int[] start;
+    private int[] duration;
+    private int[] group;
+
+    private Module[] modules = new Module[16];
+    private Lecturer[] lecturers = new Lecturer[16];
+    private Room[] rooms = new Room[16];
+
+    /** Creates an empty table. */
+    public SessionTable() {
+        this(64);
+    }
+
+    /**
+     * Creates an empty table with room for a number of rows before it has to grow.
+     *
+     * @param capacity the expected number of sessions
+     */
+    public SessionTable(int capacity) {
+        int n = Math.max(capacity, 1);
+        module = new int[n];
+        lecturer = new int[n];
+        room = new int[n];
+        day = new int[n];
+        start = new int[n];
+        duration = new int[n];
+        group = new int[n];
+    }
+
+    /**
+     * Copies a list of sessions into a new table, in list order.
+     *
+     * @param sessions the sessions to copy
+     * @return the table
+     */
+    public static SessionTable of(List<ScheduledSession> sessions) {
+        SessionTable table = new SessionTable(sessions.size());
+        for (ScheduledSession s : sessions) table.add(s);
+        return table;
+    }
+
+    /**
+     * Appends a session.
+     *
+     * @param s the session to copy into the table
+     * @return the row number of the session
+     */
+    public int add(ScheduledSession s) {
+        Timeslot t = s.getTimeslot();
+        return add(s.getModule(), s.getLecturer(), s.getRoom(),
+                t == null ? KeyDictionary.NONE : t.getDayKey(),
+                t == null ? 0 : t.getStartHour(),
+                t == null ? 0 : t.getDuration(),
+                s.getGroupKey());
+    }
+
+    /**
+     * Appends a session without creating any objects for it.
+     *
+     * @param m         the module, or null
+     * @param l         the lecturer, or null
+     * @param r         the room, or null
+     * @param dayKey    the day key from KeyDictionary.DAYS
+     * @param startHour the start hour
+     * @param hours     the duration in hours
+     * @param groupKey  the group key from KeyDictionary.GROUPS
+     * @return the row number of the session
+     */
+    public int add(Module m, Lecturer l, Room r, int dayKey, int startHour, int hours, int groupKey) {
+        if (size == module.length) grow();
+        int i = size++;
+        module[i] = (m == null) ? KeyDictionary.NONE : m.getModuleKey();
+        lecturer[i] = (l == null) ? KeyDictionary.NONE : l.getLecturerKey();
+        room[i] = (r == null) ? KeyDictionary.NONE : r.getRoomKey();
+        day[i] = dayKey;
+        start[i] = startHour;
+        duration[i] = hours;
+        group[i] = groupKey;
+
+        if (m != null) modules = remember(modules, module[i], m);
+        if (l != null) lecturers = remember(lecturers, lecturer[i], l);
+        if (r != null) rooms = remember(rooms, room[i], r);
+        return i;
+    }
+
+    /**
+     * Removes a row; the rows after it move up by one.
+     *
+     * @param index the row number
+     */
+    public void remove(int index) {
+        check(index);
+        int moved = size - index - 1;
+        for (int[] column : new int[][]{module, lecturer, room, day, start, duration, group}) {
+            System.arraycopy(column, index + 1, column, index, moved);
+        }
+        size--;
+    }
+
+    /**
+     * Finds the first row holding a session, compared by key like add() stores it.
+     *
+     * @param m         the module, or null
+     * @param l         the lecturer, or null
+     * @param r         the room, or null
+     * @param dayKey    the day key from KeyDictionary.DAYS
+     * @param startHour the start hour
+     * @param hours     the duration in hours
+     * @param groupKey  the group key from KeyDictionary.GROUPS
+     * @return the row number, or -1 if no row matches
+     */
+    public int indexOf(Module m, Lecturer l, Room r, int dayKey, int startHour, int hours, int groupKey) {
+        int moduleKey = (m == null) ? KeyDictionary.NONE : m.getModuleKey();
+        int lecturerKey = (l == null) ? KeyDictionary.NONE : l.getLecturerKey();
+        int roomKey = (r == null) ? KeyDictionary.NONE : r.getRoomKey();
+        for (int i = 0; i < size; i++) {
+            if (module[i] == moduleKey && lecturer[i] == lecturerKey && room[i] == roomKey
+                    && day[i] == dayKey && start[i] == startHour && duration[i] == hours && group[i] == groupKey) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** @return the number of sessions in the table */
+    public int size() {
+        return size;
+    }
+
+    public int getModuleKey(int index) {
+        check(index);
+        return module[index];
+    }
+
+    public int getLecturerKey(int index) {
+        check(index);
+        return lecturer[index];
+    }
+
+    public int getRoomKey(int index) {
+        check(index);
+        return room[index];
+    }
+
+    public int getDayKey(int index) {
+        check(index);
+        return day[index];
+    }
+
+    public int getStartHour(int index) {
+        check(index);
+        return start[index];
+    }
+
+    public int getDuration(int index) {
+        check(index);
+        return duration[index];
+    }
+
+    public int getGroupKey(int index) {
+        check(index);
+        return group[index];
+    }
+
+    /** @return the module of a row, or null if it has none */
+    public Module getModule(int index) {
+        return lookup(modules, getModuleKey(index));
+    }
+
+    /** @return the lecturer of a row, or null if it has none */
+    public Lecturer getLecturer(int index) {
+        return lookup(lecturers, getLecturerKey(index));
+    }
+
+    /** @return the room of a row, or null if it has none */
+    public Room getRoom(int index) {
+        return lookup(rooms, getRoomKey(index));
+    }
+
+    /**
+     * Checks if two rows are on the same day at overlapping hours, like Timeslot.overlaps.
+     *
+     * @param a the first row
+     * @param b the second row
+     * @return true if the two sessions overlap in time
+     */
+    public boolean overlaps(int a, int b) {
+        check(a);
+        check(b);
+        return day[a] != KeyDictionary.NONE && day[a] == day[b]
+                && start[a] < start[b] + duration[b]
+                && start[b] < start[a] + duration[a];
+    }
+
+    /**
+     * Builds a ScheduledSession for a row. Each call makes a new object.
+     *
+     * @param index the row number
+     * @return the session
+     */
+    public ScheduledSession get(int index) {
+        check(index);
+        String dayName = (day[index] == KeyDictionary.NONE) ? null : KeyDictionary.DAYS.name(day[index]);
+        String groupId = (group[index] == KeyDictionary.NONE) ? null : KeyDictionary.GROUPS.name(group[index]);
+        return new ScheduledSession(getModule(index), getLecturer(index), getRoom(index),
+                new Timeslot(dayName, start[index], duration[index]), groupId);
+    }
+
+    /**
+     * Builds a ScheduledSession for every row.
+     *
+     * @return the sessions in row order
+     */
+    public List<ScheduledSession> toList() {
+        List<ScheduledSession> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) list.add(get(i));
+        return list;
+    }
+
+    private void check(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+        }
+    }
+
+    private void grow() {
+        int n = module.length + (module.length >> 1) + 1;
+        module = Arrays.copyOf(module, n);
+        lecturer = Arrays.copyOf(lecturer, n);
+        room = Arrays.copyOf(room, n);
+        day = Arrays.copyOf(day, n);
+        start = Arrays.copyOf(start, n);
+        duration = Arrays.copyOf(duration, n);
+        group = Arrays.copyOf(group, n);
+    }
+
+    /** Keeps the first object seen for a key, the same as DataManager's lookups. */
+    private static <T> T[] remember(T[] objects, int key, T value) {
+        if (key < 0) return objects;
+        if (key >= objects.length) objects = Arrays.copyOf(objects, Math.max(key + 1, objects.length * 2));
+        if (objects[key] == null) objects[key] = value;
+        return objects;
+    }
+
+    private static <T> T lookup(T[] objects, int key) {
+        return (key >= 0 && key < objects.length) ? objects[key] : null;
+    }
+}
@@ -4,12 +4,14 @@ public class Timeslot {
 
 
     private String day;
+    private int dayKey;
     private int startHour;
     private int duration;
 
 
     public Timeslot(String day, int startHour, int duration) {
         this.day = day;
+        this.dayKey = KeyDictionary.DAYS.intern(day);
         this.startHour = startHour;
         this.duration = duration;
     }
@@ -23,6 +25,15 @@ public class Timeslot {
         return day;
     }
 
+    /**
+     * Gets the day as a key from KeyDictionary.DAYS, 0 for Monday up to 4 for Friday.
+     *
+     * @return the day key
+     */
+    public int getDayKey() {
+        return dayKey;
+    }
+
     /**
      * Gets the starting hour of this timeslot.
      *
@@ -52,12 +63,13 @@ public class Timeslot {
      * Two timeslots overlap if:
      * - they are on the same day, and
      * - their time ranges cross over.
+     * A timeslot without a day overlaps nothing.
      *
      * @param other the other timeslot to compare with
      * @return true if both timeslots overlap, false otherwise
      */
     public boolean overlaps(Timeslot other) {
-        if (!this.day.equals(other.day)) {
+        if (this.dayKey == KeyDictionary.NONE || this.dayKey != other.dayKey) {
             return false;
         }
 
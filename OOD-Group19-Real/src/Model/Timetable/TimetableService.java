@@ -1,16 +1,43 @@
 package Model.Timetable;
 
+import Model.People.Lecturer;
+import Model.Room.Room;
+
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Handles timetable-related logic such as storing sessions and
  * checking for clashes when new sessions are added.
+ *
+ * Sessions are also indexed by room and by lecturer, bucketed by day and hour,
+ * so a clash check only looks at sessions that could overlap the new one.
+ * Lookups by room ID, module code and lecturer ID or name go through case-blind
+ * indexes, and every list comes back in timetable order.
  */
 public class TimetableService {
 
     private List<ScheduledSession> sessions;
 
+    /** Room -> day and hour bucket -> sessions using the room in that hour. */
+    private final Map<Room, Map<Integer, List<ScheduledSession>>> roomIndex = new HashMap<>();
+    /** Lecturer -> day and hour bucket -> sessions taught in that hour. */
+    private final Map<Lecturer, Map<Integer, List<ScheduledSession>>> lecturerIndex = new HashMap<>();
+    /** Lower-case room ID, module code, lecturer ID and lecturer name -> sessions in timetable order. */
+    private final Map<String, List<ScheduledSession>> byRoomId = new HashMap<>();
+    private final Map<String, List<ScheduledSession>> byModuleCode = new HashMap<>();
+    private final Map<String, List<ScheduledSession>> byLecturerId = new HashMap<>();
+    private final Map<String, List<ScheduledSession>> byLecturerName = new HashMap<>();
+    /** Insertion order of each session, so conflicts are reported in timetable order. */
+    private final Map<ScheduledSession, Long> order = new IdentityHashMap<>();
+    /** Order of removed sessions, so a restored session goes back to its old place. */
+    private final Map<ScheduledSession, Long> removedOrder = new IdentityHashMap<>();
+    private long nextOrder = 0;
+
     public TimetableService() {
         this.sessions = new ArrayList<>();
     }
@@ -22,7 +49,19 @@ public class TimetableService {
      */
     public void loadSessions(List<ScheduledSession> loaded) {
         sessions = new ArrayList<>();
-        sessions.addAll(loaded);
+        roomIndex.clear();
+        lecturerIndex.clear();
+        byRoomId.clear();
+        byModuleCode.clear();
+        byLecturerId.clear();
+        byLecturerName.clear();
+        order.clear();
+        removedOrder.clear();
+        nextOrder = 0;
+
+        for (ScheduledSession s : loaded) {
+            insert(s);
+        }
     }
 
     /**
@@ -33,9 +72,35 @@ public class TimetableService {
      * @return a list of conflict messages, empty if the session is valid
      */
     public List<String> addSession(ScheduledSession newSession) {
+        List<String> conflicts = checkConflicts(newSession);
+
+        if (conflicts.isEmpty()) {
+            insert(newSession);
+        }
+
+        return conflicts;
+    }
+
+    /**
+     * Checks a session against the timetable without adding it.
+     * Only sessions sharing the room or lecturer in an overlapping hour are looked at.
+     *
+     * @param newSession the session to check
+     * @return a list of conflict messages, empty if the session could be added
+     */
+    public List<String> checkConflicts(ScheduledSession newSession) {
         List<String> conflicts = new ArrayList<>();
 
-        for (ScheduledSession existing : sessions) {
+        List<ScheduledSession> candidates = new ArrayList<>();
+        collect(roomIndex.get(newSession.getRoom()), newSession.getTimeslot(), candidates);
+        collect(lecturerIndex.get(newSession.getLecturer()), newSession.getTimeslot(), candidates);
+        candidates.sort((a, b) -> Long.compare(order.get(a), order.get(b)));
+
+        ScheduledSession previous = null;
+        for (ScheduledSession existing : candidates) {
+            if (existing == previous) continue; // found through both room and lecturer
+            previous = existing;
+
             if (existing.sameTimeWith(newSession)) {
 
                 // Room conflict
@@ -50,18 +115,46 @@ public class TimetableService {
             }
         }
 
-        if (conflicts.isEmpty()) {
-            sessions.add(newSession);
-        }
-
         return conflicts;
     }
 
     /**
-     * @return all sessions stored in the timetable
+     * Removes a session from the timetable.
+     *
+     * @param session the session to remove
+     * @return true if the session was in the timetable
+     */
+    public boolean removeSession(ScheduledSession session) {
+        if (!order.containsKey(session)) return false;
+
+        removeSame(sessions, session);
+        unindex(roomIndex, session.getRoom(), session);
+        unindex(lecturerIndex, session.getLecturer(), session);
+        unindex(byRoomId, roomId(session), session);
+        unindex(byModuleCode, moduleCode(session), session);
+        unindex(byLecturerId, lecturerId(session), session);
+        unindex(byLecturerName, lecturerName(session), session);
+        removedOrder.put(session, order.remove(session));
+        return true;
+    }
+
+    /**
+     * Puts a session back into the timetable without checking for clashes,
+     * e.g. when an edit is rolled back. A session that was removed earlier goes
+     * back to its old place in the timetable order.
+     *
+     * @param session the session to restore
+     */
+    public void restoreSession(ScheduledSession session) {
+        if (order.containsKey(session)) return;
+        insert(session);
+    }
+
+    /**
+     * @return a copy of all sessions stored in the timetable; changing it does not change the timetable
      */
     public List<ScheduledSession> getAllSessions() {
-        return sessions;
+        return new ArrayList<>(sessions);
     }
 
     /**
@@ -71,13 +164,17 @@ public class TimetableService {
      * @return matching sessions
      */
     public List<ScheduledSession> getSessionsForLecturer(String lecturerName) {
-        List<ScheduledSession> result = new ArrayList<>();
-        for (ScheduledSession s : sessions) {
-            if (s.getLecturer().getName().equalsIgnoreCase(lecturerName)) {
-                result.add(s);
-            }
-        }
-        return result;
+        return lookup(byLecturerName, lecturerName);
+    }
+
+    /**
+     * Gets all sessions taught by a lecturer.
+     *
+     * @param lecturerId the lecturer ID
+     * @return matching sessions
+     */
+    public List<ScheduledSession> getSessionsForLecturerId(String lecturerId) {
+        return lookup(byLecturerId, lecturerId);
     }
 
     /**
@@ -87,13 +184,7 @@ public class TimetableService {
      * @return matching sessions
      */
     public List<ScheduledSession> getSessionsForRoom(String roomId) {
-        List<ScheduledSession> result = new ArrayList<>();
-        for (ScheduledSession s : sessions) {
-            if (s.getRoom().getRoomId().equalsIgnoreCase(roomId)) {
-                result.add(s);
-            }
-        }
-        return result;
+        return lookup(byRoomId, roomId);
     }
 
     /**
@@ -103,12 +194,116 @@ public class TimetableService {
      * @return matching sessions
      */
     public List<ScheduledSession> getSessionsForModule(String moduleCode) {
-        List<ScheduledSession> result = new ArrayList<>();
-        for (ScheduledSession s : sessions) {
-            if (s.getModule().getModuleCode().equalsIgnoreCase(moduleCode)) {
-                result.add(s);
+        return lookup(byModuleCode, moduleCode);
+    }
+
+    private void insert(ScheduledSession s) {
+        Long previous = removedOrder.remove(s);
+        order.put(s, (previous != null) ? previous : nextOrder++);
+        insertInOrder(sessions, s);
+        index(roomIndex, s.getRoom(), s);
+        index(lecturerIndex, s.getLecturer(), s);
+        index(byRoomId, roomId(s), s);
+        index(byModuleCode, moduleCode(s), s);
+        index(byLecturerId, lecturerId(s), s);
+        index(byLecturerName, lecturerName(s), s);
+    }
+
+    private void index(Map<String, List<ScheduledSession>> index, String key, ScheduledSession s) {
+        if (key != null) insertInOrder(index.computeIfAbsent(key, k -> new ArrayList<>()), s);
+    }
+
+    private void unindex(Map<String, List<ScheduledSession>> index, String key, ScheduledSession s) {
+        if (key == null) return;
+        List<ScheduledSession> list = index.get(key);
+        if (list == null) return;
+        removeSame(list, s);
+        if (list.isEmpty()) index.remove(key);
+    }
+
+    private List<ScheduledSession> lookup(Map<String, List<ScheduledSession>> index, String key) {
+        if (key == null) return new ArrayList<>();
+        List<ScheduledSession> found = index.get(fold(key));
+        return (found == null) ? new ArrayList<>() : new ArrayList<>(found);
+    }
+
+    /** Adds a session to a list kept in timetable order; new sessions simply go on the end. */
+    private void insertInOrder(List<ScheduledSession> list, ScheduledSession s) {
+        long pos = order.get(s);
+        int i = list.size();
+        while (i > 0 && order.get(list.get(i - 1)) > pos) i--;
+        list.add(i, s);
+    }
+
+    private static void removeSame(List<ScheduledSession> list, ScheduledSession s) {
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i) == s) {
+                list.remove(i);
+                return;
+            }
+        }
+    }
+
+    private static String roomId(ScheduledSession s) {
+        return (s.getRoom() == null) ? null : fold(s.getRoom().getRoomId());
+    }
+
+    private static String moduleCode(ScheduledSession s) {
+        return (s.getModule() == null) ? null : fold(s.getModule().getModuleCode());
+    }
+
+    private static String lecturerId(ScheduledSession s) {
+        return (s.getLecturer() == null) ? null : fold(s.getLecturer().getLecturerId());
+    }
+
+    private static String lecturerName(ScheduledSession s) {
+        return (s.getLecturer() == null) ? null : fold(s.getLecturer().getName());
+    }
+
+    /** Case-blind key, the same match as equalsIgnoreCase for the IDs and names used here. */
+    private static String fold(String key) {
+        return (key == null) ? null : key.toLowerCase(Locale.ROOT);
+    }
+
+    private <K> void index(Map<K, Map<Integer, List<ScheduledSession>>> index, K key, ScheduledSession s) {
+        if (key == null || s.getTimeslot() == null) return;
+        Map<Integer, List<ScheduledSession>> buckets = index.computeIfAbsent(key, k -> new HashMap<>());
+        Timeslot t = s.getTimeslot();
+        for (int h = t.getStartHour(); h < lastHour(t); h++) {
+            buckets.computeIfAbsent(bucket(t.getDayKey(), h), k -> new ArrayList<>()).add(s);
+        }
+    }
+
+    private <K> void unindex(Map<K, Map<Integer, List<ScheduledSession>>> index, K key, ScheduledSession s) {
+        if (key == null || s.getTimeslot() == null) return;
+        Map<Integer, List<ScheduledSession>> buckets = index.get(key);
+        if (buckets == null) return;
+        Timeslot t = s.getTimeslot();
+        for (int h = t.getStartHour(); h < lastHour(t); h++) {
+            List<ScheduledSession> list = buckets.get(bucket(t.getDayKey(), h));
+            if (list != null) list.remove(s);
+        }
+    }
+
+    /** Adds every session in the buckets covered by the timeslot to the result. */
+    private void collect(Map<Integer, List<ScheduledSession>> buckets, Timeslot t, List<ScheduledSession> result) {
+        if (buckets == null || t == null) return;
+        for (int h = t.getStartHour(); h < lastHour(t); h++) {
+            List<ScheduledSession> list = buckets.get(bucket(t.getDayKey(), h));
+            if (list == null) continue;
+            for (ScheduledSession s : list) {
+                if (s.getTimeslot().overlaps(t)) result.add(s);
             }
         }
-        return result;
+    }
+
+    /** A session always sits in at least its starting hour, even with a zero duration. */
+    private static int lastHour(Timeslot t) {
+        return Math.max(t.getStartHour() + t.getDuration(), t.getStartHour() + 1);
+    }
+
+    /** Buckets may share a key for hours past 63, which only costs an extra overlap check. */
+    private static int bucket(int dayKey, int hour) {
+        return (dayKey << 6) | (hour & 63);
     }
 }
@@ -5,6 +5,8 @@ import controllers.TimetableController;
 import Model.People.Student;
 import Model.People.Lecturer;
 import Model.People.Admin;
+import Model.People.Credential;
+import Model.Timetable.ScheduledSession;
 
 import java.util.Scanner;
 
@@ -40,6 +42,7 @@ public class UserInterface {
                 default -> showMessage("Invalid option. Try again");
             }
         }
+        datamanager.compactJournals();
         System.exit(0);
     }
 
@@ -203,26 +206,29 @@ public class UserInterface {
             String programme = prompt("Programme");
             int year = Integer.parseInt(prompt("Year"));
             String groupId = prompt("Group");
-            datamanager.students.add(new Model.People.Student(id, name, email, password, programme, year, groupId));
+            Student student = new Student(id, name, email, Credential.hash(password), programme, year, groupId);
+            datamanager.addStudent(student);
             showMessage("Student added.");
-            datamanager.saveStudents("OOD-Group19-Real/data/students.csv");
+            datamanager.journalUserAdded("OOD-Group19-Real/data/students.csv", student);
         } else if (type.equals("lecturer")) {
             String id = prompt("Lecturer ID");
             String name = prompt("Name");
             String email = prompt("Email");
             String password = prompt("Password");
             String dept = prompt("Department");
-            datamanager.lecturers.add(new Model.People.Lecturer(id, name, email, password, dept));
+            Lecturer lecturer = new Lecturer(id, name, email, Credential.hash(password), dept);
+            datamanager.addLecturer(lecturer);
             showMessage("Lecturer added.");
-            datamanager.saveLecturers("OOD-Group19-Real/data/lecturers.csv");
+            datamanager.journalUserAdded("OOD-Group19-Real/data/lecturers.csv", lecturer);
         } else if (type.equals("admin")) {
             String id = prompt("Admin ID");
             String name = prompt("Name");
             String email = prompt("Email");
             String password = prompt("Password");
-            datamanager.admins.add(new Model.People.Admin(id, name, email, password));
+            Admin admin = new Admin(id, name, email, Credential.hash(password));
+            datamanager.addAdmin(admin);
             showMessage("Admin added.");
-            datamanager.saveAdmins("OOD-Group19-Real/data/admins.csv");
+            datamanager.journalUserAdded("OOD-Group19-Real/data/admins.csv", admin);
         } else {
             showMessage("Unknown type.");
         }
@@ -232,14 +238,11 @@ public class UserInterface {
         showMessage("Remove user - enter email");
         String email = getInput().trim();
 
-        boolean removed = datamanager.students.removeIf(s -> s.getEmail().equalsIgnoreCase(email));
-        removed = datamanager.lecturers.removeIf(l -> l.getEmail().equalsIgnoreCase(email)) || removed;
-        removed = datamanager.admins.removeIf(a -> a.getEmail().equalsIgnoreCase(email)) || removed;
+        boolean removed = datamanager.removeUsersByEmail(email);
 
         if (removed){
-            datamanager.saveStudents("OOD-Group19-Real/data/students.csv");
-            datamanager.saveLecturers("OOD-Group19-Real/data/lecturers.csv");
-            datamanager.saveAdmins("OOD-Group19-Real/data/admins.csv");
+            datamanager.journalUsersRemoved("OOD-Group19-Real/data/students.csv",
+                    "OOD-Group19-Real/data/lecturers.csv", "OOD-Group19-Real/data/admins.csv", email);
              showMessage("User removed.");
         }
         else showMessage("No user found with that email.");
@@ -281,7 +284,7 @@ public class UserInterface {
         boolean success = controller.addSessionAdmin(moduleCode, day, start, end, roomId, lecturerId, groupId);
         if (success) {
             showMessage("Session added successfully.");
-            datamanager.saveSessions("OOD-Group19-Real/data/sessions.csv");
+            datamanager.journalSessionAdded("OOD-Group19-Real/data/sessions.csv");
         } else {
             showMessage("Session could not be added.");
         }
@@ -291,9 +294,10 @@ public class UserInterface {
         showMessage("Remove session - enter index (see list sessions)");
         try {
             int idx = Integer.parseInt(getInput().trim());
+            ScheduledSession old = sessionAt(idx);
             boolean ok = controller.removeSessionByIndex(idx);
             if (ok) {
-                datamanager.saveSessions("OOD-Group19-Real/data/sessions.csv");
+                datamanager.journalSessionRemoved("OOD-Group19-Real/data/sessions.csv", old);
                 showMessage("Session removed.");
             } else {
                 showMessage("Invalid index.");
@@ -315,9 +319,10 @@ public class UserInterface {
             String lecturerId = prompt("Lecturer ID");
             String groupId = prompt("Group ID");
 
+            ScheduledSession old = sessionAt(idx);
             boolean ok = controller.updateSessionByIndex(idx, moduleCode, day, start, end, roomId, lecturerId, groupId);
             if (ok) {
-                datamanager.saveSessions("OOD-Group19-Real/data/sessions.csv");
+                datamanager.journalSessionUpdated("OOD-Group19-Real/data/sessions.csv", old);
                 showMessage("Session updated.");
             } else {
                 showMessage("Could not update session (conflict or bad data).");
@@ -326,4 +331,9 @@ public class UserInterface {
             showMessage("Invalid number.");
         }
  }
+
+ /** Gets the session at an index before it is changed, so the change can be journalled by content. */
+ private ScheduledSession sessionAt(int idx) {
+        return (idx >= 0 && idx < datamanager.sessions.size()) ? datamanager.sessions.get(idx) : null;
+ }
 }
@@ -0,0 +1,298 @@
+package benchmarks;
+
+import Model.People.Credential;
+import controllers.CSVWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Writes a made-up university of any size as the six CSV files the system
+ * loads: students, lecturers, rooms, modules, programmes and programmeSemesters,
+ * in the same columns as the files in the data folder.
+ *
+ * The files agree with each other: every module belongs to a programme, year
+ * and semester that exist, lists lecturers from its programme's department,
+ * and appears in programmeSemesters; every student is in an existing programme
+ * and year. Everything is drawn from one Random, so the same settings and seed
+ * always give byte-for-byte the same files.
+ *
+ * Every account's password is its own user ID, stored only as a salted hash
+ * with the salt drawn from the same Random. Hashing is most of the work for a
+ * large file, so the students' hashes are worked out in parallel.
+ *
+ * Tightness is how much of the teaching week the modules need. Rooms and
+ * lecturers that are not given are worked out from it: at 0.5 the modules fill
+ * about half of the room-hours of the week and half of a 16 hour teaching load
+ * per lecturer, at 1.0 all of it. Run from the project root:
+ * <pre>
+ *   java -cp out benchmarks.DatasetGenerator --out data/large --students 50000 --modules 5000 --rooms 800
+ *        [--programmes N] [--lecturers N] [--tightness 0.7] [--seed 1]
+ * </pre>
+ */
+public class DatasetGenerator {
+
+    /** Teaching hours in the MON-FRI 9:00-18:00 week. */
+    public static final int WEEK_HOURS = 45;
+    /** Teaching hours per week a lecturer is expected to take at full tightness. */
+    public static final int LECTURER_HOURS = 16;
+
+    private static final String[][] DEPARTMENTS = {
+            {"CSIS", "CS"}, {"Electronic & Computer Engineering", "EE"}, {"Mathematics & Statistics", "MS"},
+            {"Physics", "PH"}, {"Business", "BU"}, {"Engineering", "EN"}
+    };
+    private static final String[][] BUILDINGS = {
+            {"CSIS Building", "CS"}, {"Engineering Research", "ER"}, {"Schrodinger", "SR"},
+            {"Kemmy Business School", "KB"}, {"Lonsdale", "LC"}, {"Main Building", "MB"}
+    };
+    private static final String[] FIRST_NAMES = {
+            "Aoife", "Ciaran", "Niamh", "Sean", "Emma", "Conor", "Saoirse", "Darragh", "Orla", "Eoin",
+            "Grainne", "Padraig", "Roisin", "Cathal", "Siobhan", "Liam", "Clodagh", "Fionn", "Aisling", "Oisin"
+    };
+    private static final String[] LAST_NAMES = {
+            "Murphy", "Kelly", "O'Sullivan", "Walsh", "Smith", "O'Brien", "Byrne", "Ryan", "O'Connor", "O'Neill",
+            "Gallagher", "Doyle", "McCarthy", "Lynch", "Murray", "Quinn", "Moore", "McLoughlin", "Carroll", "Brennan"
+    };
+    private static final String[] SUBJECTS = {
+            "Computer Science", "Artificial Intelligence", "Software Engineering", "Cyber Security", "Data Science",
+            "Electronic Engineering", "Mathematics", "Applied Physics", "Business Studies", "Mechanical Engineering"
+    };
+    private static final String[] TOPICS = {
+            "Programming", "Algorithms", "Databases", "Networks", "Statistics", "Calculus", "Linear Algebra",
+            "Operating Systems", "Machine Learning", "Signals", "Circuits", "Accounting", "Mechanics", "Optics"
+    };
+
+    private final long seed;
+    private final int students;
+    private final int modules;
+    private final int programmes;
+    private final int lecturers;
+    private final int rooms;
+    private final double tightness;
+
+    /**
+     * @param seed       the seed every value is drawn from
+     * @param students   the number of students
+     * @param modules    the number of modules
+     * @param programmes the number of programmes, or 0 for one per 40 modules
+     * @param lecturers  the number of lecturers, or 0 to work it out from the tightness
+     * @param rooms      the number of rooms, or 0 to work it out from the tightness
+     * @param tightness  the share of the teaching week the modules need, above 0 and at most 1
+     */
+    public DatasetGenerator(long seed, int students, int modules, int programmes, int lecturers, int rooms,
+                            double tightness) {
+        if (students < 0 || modules < 1 || programmes < 0 || lecturers < 0 || rooms < 0) {
+            throw new IllegalArgumentException("Counts must not be negative and there must be at least one module");
+        }
+        if (!(tightness > 0 && tightness <= 1)) {
+            throw new IllegalArgumentException("Tightness must be above 0 and at most 1: " + tightness);
+        }
+        this.seed = seed;
+        this.students = students;
+        this.modules = modules;
+        this.programmes = (programmes > 0) ? programmes : Math.max(1, modules / 40);
+        this.lecturers = lecturers;
+        this.rooms = rooms;
+        this.tightness = tightness;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Expected --option value: " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        DatasetGenerator generator = new DatasetGenerator(
+                Long.parseLong(options.getOrDefault("seed", "1")),
+                Integer.parseInt(options.getOrDefault("students", "50000")),
+                Integer.parseInt(options.getOrDefault("modules", "5000")),
+                Integer.parseInt(options.getOrDefault("programmes", "0")),
+                Integer.parseInt(options.getOrDefault("lecturers", "0")),
+                Integer.parseInt(options.getOrDefault("rooms", "0")),
+                Double.parseDouble(options.getOrDefault("tightness", "0.7")));
+        File dir = new File(options.getOrDefault("out", "OOD-Group19-Real/data/synthetic"));
+        System.out.println(generator.write(dir));
+    }
+
+    /**
+     * Writes the six CSV files into a folder, creating it if needed.
+     *
+     * @param dir the folder to write to
+     * @return a one-line summary of what was written
+     * @throws IOException if the folder cannot be created or a file cannot be written
+     */
+    public String write(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        Random random = new Random(seed);
+
+        // programmes, each run by one department
+        String[] programmeIds = new String[programmes];
+        int[] programmeDepartment = new int[programmes];
+        List<String[]> programmeRows = new ArrayList<>();
+        programmeRows.add(new String[]{"programmeId", "programmeName"});
+        for (int p = 0; p < programmes; p++) {
+            programmeIds[p] = "LM" + (100 + p);
+            programmeDepartment[p] = p % DEPARTMENTS.length;
+            programmeRows.add(new String[]{programmeIds[p],
+                    SUBJECTS[random.nextInt(SUBJECTS.length)] + (p >= SUBJECTS.length ? " " + (p / SUBJECTS.length + 1) : "")});
+        }
+
+        // modules, spread evenly over every programme, year and semester
+        String[][] moduleRows = new String[modules][];
+        int[] lecHours = new int[modules];
+        int[] labHours = new int[modules];
+        int[] tutHours = new int[modules];
+        int[] moduleProgramme = new int[modules];
+        int[] moduleSemester = new int[modules];
+        Map<String, Integer> codeCounters = new HashMap<>();
+        long lectureHours = 0;
+        long labRoomHours = 0;
+        long teachingHours = 0;
+        for (int m = 0; m < modules; m++) {
+            int cell = m % (programmes * 8);
+            int p = cell / 8;
+            int year = cell % 8 / 2 + 1;
+            int semester = cell % 2 + 1;
+            String prefix = DEPARTMENTS[programmeDepartment[p]][1];
+            int number = codeCounters.merge(prefix + year, 1, Integer::sum);
+
+            lecHours[m] = (random.nextInt(5) == 0) ? 3 : 2;
+            int lab = random.nextInt(20);
+            labHours[m] = (lab < 8) ? 0 : (lab < 17) ? 1 : 2;
+            tutHours[m] = random.nextInt(2);
+            moduleProgramme[m] = p;
+            moduleSemester[m] = semester;
+            moduleRows[m] = new String[]{prefix + year + String.format("%03d", number),
+                    TOPICS[random.nextInt(TOPICS.length)] + " " + number, String.valueOf(year),
+                    String.valueOf(semester), programmeIds[p], String.valueOf(lecHours[m]),
+                    String.valueOf(labHours[m]), String.valueOf(tutHours[m]), null};
+
+            // each lab and tutorial hour is taught once per group, G1 and G2
+            lectureHours += lecHours[m] + 2L * tutHours[m];
+            labRoomHours += 2L * labHours[m];
+            teachingHours += lecHours[m] + 2L * (labHours[m] + tutHours[m]);
+        }
+
+        // lecturers, enough for the teaching hours at the given tightness
+        int lecturerCount = (lecturers > 0) ? lecturers
+                : (int) Math.max(DEPARTMENTS.length, Math.ceil(teachingHours / (LECTURER_HOURS * tightness)));
+        List<List<String>> byDepartment = new ArrayList<>();
+        for (int d = 0; d < DEPARTMENTS.length; d++) byDepartment.add(new ArrayList<>());
+        List<String[]> lecturerRows = new ArrayList<>();
+        lecturerRows.add(new String[]{"lecturerId", "name", "email", "passwordHash", "department", "role"});
+        for (int l = 0; l < lecturerCount; l++) {
+            String id = String.valueOf(10000 + l);
+            int d = l % DEPARTMENTS.length;
+            byDepartment.get(d).add(id);
+            lecturerRows.add(new String[]{id, name(random), id + "@ul.ie", credential(id, salt(random)),
+                    DEPARTMENTS[d][0], "Lecturer"});
+        }
+        for (int m = 0; m < modules; m++) {
+            List<String> staff = byDepartment.get(programmeDepartment[moduleProgramme[m]]);
+            if (staff.isEmpty()) staff = lecturerIds(lecturerRows);
+            int count = 1 + random.nextInt(Math.min(3, staff.size()));
+            List<String> chosen = new ArrayList<>();
+            while (chosen.size() < count) {
+                String id = staff.get(random.nextInt(staff.size()));
+                if (!chosen.contains(id)) chosen.add(id);
+            }
+            moduleRows[m][8] = String.join(";", chosen);
+        }
+
+        // rooms, split between teaching rooms and labs in line with the hours each needs
+        int roomCount = (rooms > 0) ? rooms
+                : (int) Math.ceil((lectureHours + labRoomHours) / (WEEK_HOURS * tightness));
+        int labCount = (int) Math.round(roomCount * (double) labRoomHours / Math.max(1, lectureHours + labRoomHours));
+        if (labRoomHours > 0 && labCount == 0 && roomCount > 1) labCount = 1;
+        List<String[]> roomRows = new ArrayList<>();
+        roomRows.add(new String[]{"roomId", "type", "capacity", "building"});
+        int[] roomNumbers = new int[BUILDINGS.length];
+        for (int r = 0; r < roomCount; r++) {
+            boolean lab = r < labCount;
+            int b = random.nextInt(BUILDINGS.length);
+            int capacity = lab ? pick(random, 30, 35, 40, 60) : pick(random, 40, 60, 80, 80, 120, 150, 250);
+            String id = BUILDINGS[b][1] + (lab ? "L" : "G") + String.format("%03d", ++roomNumbers[b]);
+            roomRows.add(new String[]{id, lab ? "CSlab" : "teaching", String.valueOf(capacity), BUILDINGS[b][0]});
+        }
+
+        // students, spread over every programme and year, alternating groups
+        byte[][] salts = new byte[students][];
+        for (int s = 0; s < students; s++) salts[s] = salt(random);
+        String[] credentials = IntStream.range(0, students).parallel()
+                .mapToObj(s -> credential(String.valueOf(24000000 + s), salts[s])).toArray(String[]::new);
+        write(new File(dir, "students.csv"), out -> {
+            out.writeRow("studentId", "name", "email", "passwordHash", "programme", "year", "groupId");
+            for (int s = 0; s < students; s++) {
+                String id = String.valueOf(24000000 + s);
+                int cohort = s % (programmes * 4);
+                out.writeRow(id, name(random), id + "@studentmail.ul.ie", credentials[s],
+                        programmeIds[cohort / 4], String.valueOf(cohort % 4 + 1), (s / (programmes * 4)) % 2 == 0 ? "G1" : "G2");
+            }
+        });
+
+        List<String[]> moduleFile = new ArrayList<>();
+        moduleFile.add(new String[]{"moduleCode", "moduleName", "year", "semester", "programmeId",
+                "lecHours", "labHours", "tutHours", "lecturerIds"});
+        List<String[]> semesterFile = new ArrayList<>();
+        semesterFile.add(new String[]{"programmeId", "moduleCode", "semester"});
+        for (int m = 0; m < modules; m++) {
+            moduleFile.add(moduleRows[m]);
+            semesterFile.add(new String[]{programmeIds[moduleProgramme[m]], moduleRows[m][0], String.valueOf(moduleSemester[m])});
+        }
+
+        write(new File(dir, "programmes.csv"), programmeRows);
+        write(new File(dir, "modules.csv"), moduleFile);
+        write(new File(dir, "programmeSemesters.csv"), semesterFile);
+        write(new File(dir, "lecturers.csv"), lecturerRows);
+        write(new File(dir, "rooms.csv"), roomRows);
+
+        return String.format("Wrote %d students, %d lecturers, %d rooms (%d labs), %d modules (%d teaching hours) "
+                        + "and %d programmes to %s", students, lecturerCount, roomCount, labCount, modules,
+                teachingHours, programmes, dir.getPath());
+    }
+
+    private static void write(File file, List<String[]> rows) throws IOException {
+        write(file, out -> {
+            for (String[] row : rows) out.writeRow(row);
+        });
+    }
+
+    /** Writes one file, replacing the old one only once every row is written. */
+    private static void write(File file, CSVWriter.RowSource rows) throws IOException {
+        try (CSVWriter out = new CSVWriter(file.getPath())) {
+            rows.writeRows(out);
+            out.commit();
+        }
+    }
+
+    private static String name(Random random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    private static byte[] salt(Random random) {
+        byte[] salt = new byte[16];
+        random.nextBytes(salt);
+        return salt;
+    }
+
+    /** Gets the password column for a user whose password is their ID. */
+    private static String credential(String id, byte[] salt) {
+        return Credential.hash(id, salt, Credential.DEFAULT_ITERATIONS).encode();
+    }
+
+    private static int pick(Random random, int... values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static List<String> lecturerIds(List<String[]> lecturerRows) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 1; i < lecturerRows.size(); i++) ids.add(lecturerRows.get(i)[0]);
+        return ids;
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import Model.Timetable.TimetableService;
+import controllers.DataManager;
+import controllers.TimetableGenerator;
+
+/**
+ * Compares the GREEDY and DSATUR generator engines on a large input: how many
+ * hours each places and how long it takes.
+ *
+ * The input is the modules, rooms and lecturers from the data folder copied a
+ * number of times, each copy with its own programme, module, room and lecturer
+ * IDs. Every engine runs once per seed and the totals are printed. Run from the
+ * project root:
+ * <pre>
+ *   java -cp out benchmarks.GeneratorBenchmark [copies] [seeds]
+ * </pre>
+ */
+public class GeneratorBenchmark {
+
+    public static void main(String[] args) {
+        int copies = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int seeds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        DataManager data = SampleData.scaled(copies);
+        TimetableService service = new TimetableService();
+        System.out.printf("Input: %d modules, %d rooms, %d lecturers%n",
+                data.modules.size(), data.rooms.size(), data.lecturers.size());
+
+        // warm up both engines before timing them
+        for (TimetableGenerator.Engine engine : TimetableGenerator.Engine.values()) {
+            new TimetableGenerator(data, service, 0, engine).generate();
+        }
+
+        for (TimetableGenerator.Engine engine : TimetableGenerator.Engine.values()) {
+            long time = 0;
+            long placed = 0;
+            long unplaced = 0;
+            for (int seed = 1; seed <= seeds; seed++) {
+                long t0 = System.nanoTime();
+                TimetableGenerator.Result result = new TimetableGenerator(data, service, seed, engine).generate();
+                time += System.nanoTime() - t0;
+                placed += result.getSessions().size();
+                unplaced += result.getUnplacedHours();
+            }
+            System.out.printf("%-7s placed %8.1f hours, unplaced %8.1f hours, %9.2f ms per run%n",
+                    engine, (double) placed / seeds, (double) unplaced / seeds, time / 1e6 / seeds);
+        }
+    }
+}
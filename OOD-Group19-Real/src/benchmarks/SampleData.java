@@ -0,0 +1,109 @@
+package benchmarks;
+
+import Model.Academic.Module;
+import Model.Academic.Programme;
+import Model.People.Lecturer;
+import Model.People.Student;
+import Model.Room.Room;
+import controllers.CSVWriter;
+import controllers.DataManager;
+
+import java.io.File;
+
+/**
+ * The sample data from the data folder, copied a number of times to make a
+ * bigger input for the benchmarks. Each copy has its own programme, module,
+ * room, lecturer and student IDs, so copy 0 of the data is the sample itself
+ * with "-0" on every ID.
+ */
+final class SampleData {
+
+    static final String DATA = "OOD-Group19-Real/data/";
+
+    private SampleData() {
+    }
+
+    /**
+     * Loads the sample data and repeats it.
+     *
+     * @param copies how many copies of the sample to make
+     * @return a DataManager holding the copies, with no sessions
+     */
+    static DataManager scaled(int copies) {
+        DataManager source = load(new File(DATA));
+        DataManager scaled = new DataManager();
+        for (int c = 0; c < copies; c++) {
+            String suffix = "-" + c;
+            for (Module m : source.modules) {
+                scaled.modules.add(new Module(m.getModuleName(), m.getModuleCode() + suffix,
+                        m.getProgrammeId() + suffix, m.getYear(), m.getSemester(),
+                        m.getLecHours(), m.getLabHours(), m.getTutHours()));
+            }
+            for (Room r : source.rooms) {
+                scaled.rooms.add(new Room(r.getRoomId() + suffix, r.getType(), r.getCapacity(), r.getBuilding()));
+            }
+            for (Lecturer l : source.lecturers) {
+                scaled.lecturers.add(new Lecturer(l.getLecturerId() + suffix, l.getName(), suffix + l.getEmail(),
+                        l.getCredential(), l.getDepartment()));
+            }
+            for (Student s : source.students) {
+                scaled.students.add(new Student(s.getId() + suffix, s.getName(), suffix + s.getEmail(),
+                        s.getCredential(), s.getProgrammeID() + suffix, s.getYear(), s.getGroupId()));
+            }
+            for (Programme p : source.programmes) {
+                scaled.programmes.add(new Programme(p.getId() + suffix, p.getName()));
+            }
+        }
+        return scaled;
+    }
+
+    /**
+     * Loads the students, lecturers, rooms, modules and programmes from a folder,
+     * e.g. the data folder or one written by DatasetGenerator.
+     *
+     * @param dir the folder holding the CSV files
+     * @return a DataManager holding the data, with no sessions
+     */
+    static DataManager load(File dir) {
+        DataManager data = new DataManager();
+        data.loadStudents(new File(dir, "students.csv").getPath());
+        data.loadLecturers(new File(dir, "lecturers.csv").getPath());
+        data.loadRooms(new File(dir, "rooms.csv").getPath());
+        data.loadModules(new File(dir, "modules.csv").getPath());
+        data.loadProgrammes(new File(dir, "programmes.csv").getPath());
+        return data;
+    }
+
+    /**
+     * Writes the students, lecturers, rooms, modules and programmes of a
+     * DataManager as CSV files in the layout the load methods read.
+     *
+     * @param data the data to write
+     * @param dir  the folder to write the files to
+     */
+    static void writeCsv(DataManager data, File dir) {
+        data.saveStudents(new File(dir, "students.csv").getPath());
+        data.saveLecturers(new File(dir, "lecturers.csv").getPath());
+        CSVWriter.write(new File(dir, "rooms.csv").getPath(), out -> {
+            out.writeRow("roomId", "type", "capacity", "building");
+            for (Room r : data.rooms) {
+                out.writeRow(r.getRoomId(), r.getType(), String.valueOf(r.getCapacity()), r.getBuilding());
+            }
+        });
+        CSVWriter.write(new File(dir, "modules.csv").getPath(), out -> {
+            out.writeRow("moduleCode", "moduleName", "year", "semester", "programmeId",
+                    "lecHours", "labHours", "tutHours", "lecturerIds");
+            for (Module m : data.modules) {
+                out.writeRow(m.getModuleCode(), m.getModuleName(), String.valueOf(m.getYear()),
+                        String.valueOf(m.getSemester()), m.getProgrammeId(), String.valueOf(m.getLecHours()),
+                        String.valueOf(m.getLabHours()), String.valueOf(m.getTutHours()), "");
+            }
+        });
+        CSVWriter.write(new File(dir, "programmes.csv").getPath(), out -> {
+            out.writeRow("programmeId", "programmeName");
+            for (Programme p : data.programmes) {
+                out.writeRow(p.getId(), p.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package benchmarks;
+
+import Model.Academic.Module;
+import Model.People.Lecturer;
+import Model.Room.Room;
+import Model.Timetable.KeyDictionary;
+import Model.Timetable.ScheduledSession;
+import Model.Timetable.SessionTable;
+import Model.Timetable.Timeslot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the heap used by a large timetable held as ScheduledSession objects
+ * with the same timetable held in a columnar SessionTable, and the time of a
+ * full scan over each.
+ *
+ * The sessions are random but fixed by a seed, spread over a few hundred
+ * modules, rooms and lecturers. Run from the project root, ideally with a heap
+ * big enough for the object version:
+ * <pre>
+ *   java -Xmx2g -cp out benchmarks.SessionTableBenchmark [sessions]
+ * </pre>
+ */
+public class SessionTableBenchmark {
+
+    private static final String[] DAYS = {"MON", "TUE", "WED", "THU", "FRI"};
+    private static final String[] GROUPS = {"ALL", "G1", "G2"};
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Random random = new Random(42);
+        List<Module> modules = new ArrayList<>();
+        List<Room> rooms = new ArrayList<>();
+        List<Lecturer> lecturers = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            modules.add(new Module("Module " + i, "BM" + i, "LM" + (i % 20), 1 + i % 4, 1 + i % 2, 2, 1, 1));
+            rooms.add(new Room("BR" + i, (i % 3 == 0) ? "lab" : "classroom", 30 + i % 90, "B" + (i % 10)));
+            lecturers.add(new Lecturer("BL" + i, "Lecturer " + i, "bl" + i + "@ul.ie", null, "CSIS"));
+        }
+
+        long before = usedHeap();
+        List<ScheduledSession> objects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            objects.add(new ScheduledSession(modules.get(random.nextInt(modules.size())),
+                    lecturers.get(random.nextInt(lecturers.size())),
+                    rooms.get(random.nextInt(rooms.size())),
+                    new Timeslot(DAYS[random.nextInt(DAYS.length)], 9 + random.nextInt(9), 1),
+                    GROUPS[random.nextInt(GROUPS.length)]));
+        }
+        long objectBytes = usedHeap() - before;
+
+        before = usedHeap();
+        SessionTable table = SessionTable.of(objects);
+        long tableBytes = usedHeap() - before;
+
+        // warm up both scans before timing them
+        long check = 0;
+        for (int i = 0; i < 5; i++) check += scanObjects(objects) + scanTable(table);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < 10; i++) check += scanObjects(objects);
+        long t1 = System.nanoTime();
+        for (int i = 0; i < 10; i++) check += scanTable(table);
+        long t2 = System.nanoTime();
+
+        System.out.printf("Sessions:           %,d%n", count);
+        System.out.printf("Objects heap:       %8.1f MB%n", objectBytes / 1e6);
+        System.out.printf("SessionTable heap:  %8.1f MB%n", tableBytes / 1e6);
+        System.out.printf("Objects scan:       %8.2f ms%n", (t1 - t0) / 1e6 / 10);
+        System.out.printf("SessionTable scan:  %8.2f ms%n", (t2 - t1) / 1e6 / 10);
+        if (check == 42) System.out.println(); // keeps the scans from being optimised away
+    }
+
+    /** Counts Monday morning sessions of group-wide classes, reading the objects. */
+    private static long scanObjects(List<ScheduledSession> sessions) {
+        long n = 0;
+        for (ScheduledSession s : sessions) {
+            Timeslot t = s.getTimeslot();
+            if (t.getDayKey() == 0 && t.getStartHour() < 12 && s.getGroupKey() == KeyDictionary.ALL_GROUPS) n++;
+        }
+        return n;
+    }
+
+    /** The same count, reading the table columns. */
+    private static long scanTable(SessionTable table) {
+        long n = 0;
+        for (int i = 0; i < table.size(); i++) {
+            if (table.getDayKey(i) == 0 && table.getStartHour(i) < 12
+                    && table.getGroupKey(i) == KeyDictionary.ALL_GROUPS) n++;
+        }
+        return n;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
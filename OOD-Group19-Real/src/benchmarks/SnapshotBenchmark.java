@@ -0,0 +1,71 @@
+package benchmarks;
+
+import controllers.DataManager;
+
+import java.io.File;
+
+/**
+ * Compares a cold start from the CSV files with a cold start from a binary snapshot.
+ *
+ * Each round builds a fresh DataManager and loads every entity plus the
+ * generated timetable, once from the CSV files and once from a snapshot
+ * written from the same data. Run from the project root:
+ * <pre>
+ *   java -cp out benchmarks.SnapshotBenchmark [rounds]
+ * </pre>
+ */
+public class SnapshotBenchmark {
+
+    private static final String DATA = "OOD-Group19-Real/data/";
+    private static final String SNAPSHOT = DATA + "benchmark.snapshot";
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        DataManager source = loadFromCsv();
+        source.saveSnapshot(SNAPSHOT);
+
+        // warm up both paths before timing them
+        for (int i = 0; i < 3; i++) {
+            loadFromCsv();
+            loadFromSnapshot();
+        }
+
+        long csv = 0;
+        long snapshot = 0;
+        for (int i = 0; i < rounds; i++) {
+            long t0 = System.nanoTime();
+            loadFromCsv();
+            long t1 = System.nanoTime();
+            loadFromSnapshot();
+            long t2 = System.nanoTime();
+            csv += t1 - t0;
+            snapshot += t2 - t1;
+        }
+
+        System.out.printf("Entities: %d students, %d lecturers, %d rooms, %d modules, %d sessions%n",
+                source.students.size(), source.lecturers.size(), source.rooms.size(),
+                source.modules.size(), source.sessions.size());
+        System.out.printf("CSV cold start:      %8.2f ms%n", csv / 1e6 / rounds);
+        System.out.printf("Snapshot cold start: %8.2f ms%n", snapshot / 1e6 / rounds);
+        new File(SNAPSHOT).delete();
+    }
+
+    private static DataManager loadFromCsv() {
+        DataManager dm = new DataManager();
+        dm.loadStudents(DATA + "students.csv");
+        dm.loadLecturers(DATA + "lecturers.csv");
+        dm.loadRooms(DATA + "rooms.csv");
+        dm.loadModules(DATA + "modules.csv");
+        dm.loadProgrammes(DATA + "programmes.csv");
+        dm.loadAdmins(DATA + "admins.csv");
+        dm.replaceSessions(dm.loadSessions(DATA + "generated_timetable.csv"));
+        return dm;
+    }
+
+    private static DataManager loadFromSnapshot() {
+        DataManager dm = new DataManager();
+        if (!dm.loadSnapshot(SNAPSHOT)) throw new IllegalStateException("snapshot could not be read");
+        return dm;
+    }
+}
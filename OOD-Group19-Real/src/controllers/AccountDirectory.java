@@ -0,0 +1,116 @@
+package controllers;
+
+import Model.People.Admin;
+import Model.People.Credential;
+import Model.People.Lecturer;
+import Model.People.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Directory of every student, lecturer and admin account, looked up by email.
+ *
+ * Emails are trimmed and lower-cased so a login is a single hash map lookup.
+ * Each user holds only a salted PBKDF2 hash of their password (a Credential),
+ * worked out when the user was added or read already hashed from the CSV
+ * files or a snapshot, so a login never has to hash a stored password first.
+ *
+ * Every login costs exactly one hash, whether or not the email is known:
+ * an email that is not in the directory is checked against a dummy
+ * credential, and an email shared by several accounts is checked against the
+ * first of them only, students before lecturers before admins. A failed
+ * login therefore takes the same time either way and does not tell which
+ * emails exist.
+ *
+ * The directory is safe to fill from several loader threads at once; only the
+ * map update is synchronized.
+ */
+public class AccountDirectory {
+
+    private final Map<String, List<User>> accounts = new HashMap<>();
+    /** Checked instead of a real account when the email is unknown, with the same cost. */
+    private final Credential dummy = Credential.hash("");
+
+    /**
+     * Adds a user account. Users without an email or password cannot log in and are skipped.
+     *
+     * @param user the student, lecturer or admin to add
+     */
+    public synchronized void add(User user) {
+        if (user.getEmail() == null || user.getCredential() == null) return;
+        // students are matched before lecturers, and lecturers before admins
+        List<User> list = accounts.computeIfAbsent(normalize(user.getEmail()), k -> new ArrayList<>(1));
+        int pos = list.size();
+        while (pos > 0 && rank(list.get(pos - 1)) > rank(user)) pos--;
+        list.add(pos, user);
+    }
+
+    /**
+     * Removes every account with the given email.
+     *
+     * @param email the email to remove
+     */
+    public synchronized void remove(String email) {
+        if (email != null) accounts.remove(normalize(email));
+    }
+
+    /**
+     * Removes the account of one user.
+     *
+     * @param user the user to remove
+     */
+    public synchronized void remove(User user) {
+        if (user.getEmail() == null) return;
+        String key = normalize(user.getEmail());
+        List<User> list = accounts.get(key);
+        if (list == null) return;
+        list.removeIf(u -> u == user);
+        if (list.isEmpty()) accounts.remove(key);
+    }
+
+    /** Removes every account. */
+    public synchronized void clear() {
+        accounts.clear();
+    }
+
+    /**
+     * Checks an email and password against the directory with exactly one password hash.
+     *
+     * @param email    the email entered
+     * @param password the password entered
+     * @return the matching user, or null if the login fails
+     */
+    public User authenticate(String email, String password) {
+        if (email == null || password == null) return null;
+
+        User user;
+        synchronized (this) {
+            List<User> found = accounts.get(normalize(email));
+            user = (found == null) ? null : found.get(0);
+        }
+        if (user == null) {
+            dummy.matches(password);
+            return null;
+        }
+        return user.getCredential().matches(password) ? user : null;
+    }
+
+    /** @return the number of emails in the directory */
+    public synchronized int size() {
+        return accounts.size();
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int rank(User user) {
+        if (user instanceof Admin) return 2;
+        if (user instanceof Lecturer) return 1;
+        return 0;
+    }
+}
@@ -1,41 +1,270 @@
 package controllers;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
  * Class for reading CSV files used by the system.
- * Each line of the file is split by commas and stored as a String array.
+ *
+ * Files are read through a fixed size char buffer and split into fields by a
+ * small state machine that follows RFC 4180: fields may be wrapped in double
+ * quotes, quoted fields may contain commas, line breaks and doubled "" quotes.
+ * Unquoted fields are trimmed and blank lines are skipped, as before.
+ *
+ * Rows are handed to a RowHandler one at a time. The Row object and its field
+ * buffer are reused for every line, so reading a file takes the same memory no
+ * matter how many rows it has.
  */
 
 public class CSVReader {
 
+    /** Receives each row of a CSV file as it is read. */
+    public interface RowHandler {
+        /**
+         * Handles one row. The row is only valid until this method returns.
+         *
+         * @param row the current row
+         */
+        void handle(Row row);
+    }
+
+    /**
+     * A view of the current row. The field text lives in a shared char buffer,
+     * so nothing is allocated unless a field is asked for as a String.
+     */
+    public static final class Row {
+        private char[] chars = new char[256];
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private int length;
+        private int fields;
+        private long lineNumber;
+
+        /** @return the number of fields in the row */
+        public int size() {
+            return fields;
+        }
+
+        /** @return the line of the file the row started on, counting from 1 */
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Gets a field as a String.
+         *
+         * @param i the field index
+         * @return the field text
+         */
+        public String get(int i) {
+            check(i);
+            return new String(chars, starts[i], ends[i] - starts[i]);
+        }
+
+        /**
+         * Parses a field as an int without creating a String.
+         *
+         * @param i the field index
+         * @return the field value
+         * @throws NumberFormatException if the field is not a whole number
+         */
+        public int getInt(int i) {
+            check(i);
+            int pos = starts[i];
+            int end = ends[i];
+            if (pos == end) throw new NumberFormatException("Empty field " + i + " on line " + lineNumber);
+
+            boolean negative = chars[pos] == '-';
+            if (negative || chars[pos] == '+') pos++;
+            if (pos == end) throw new NumberFormatException("Bad number in field " + i + " on line " + lineNumber);
+
+            long value = 0;
+            for (; pos < end; pos++) {
+                int digit = chars[pos] - '0';
+                if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE + 1L) {
+                    throw new NumberFormatException("Bad number \"" + get(i) + "\" on line " + lineNumber);
+                }
+                value = value * 10 + digit;
+            }
+            if (negative) value = -value;
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Number out of range \"" + get(i) + "\" on line " + lineNumber);
+            }
+            return (int) value;
+        }
+
+        /**
+         * Compares a field with some text ignoring case, without creating a String.
+         *
+         * @param i    the field index
+         * @param text the text to compare with
+         * @return true if the field matches
+         */
+        public boolean equalsIgnoreCase(int i, String text) {
+            if (i >= fields) return false;
+            int len = ends[i] - starts[i];
+            if (len != text.length()) return false;
+            for (int k = 0; k < len; k++) {
+                char a = chars[starts[i] + k];
+                char b = text.charAt(k);
+                if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b)
+                        && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** @return a copy of the row as a String array */
+        public String[] toArray() {
+            String[] copy = new String[fields];
+            for (int i = 0; i < fields; i++) copy[i] = get(i);
+            return copy;
+        }
+
+        private void check(int i) {
+            if (i < 0 || i >= fields) {
+                throw new ArrayIndexOutOfBoundsException("Line " + lineNumber + " has no field " + i);
+            }
+        }
+
+        private void reset(long line) {
+            length = 0;
+            fields = 0;
+            lineNumber = line;
+        }
+
+        private void append(char c) {
+            if (length == chars.length) chars = Arrays.copyOf(chars, length * 2);
+            chars[length++] = c;
+        }
+
+        private void endField(int start, int end) {
+            if (fields == starts.length) {
+                starts = Arrays.copyOf(starts, fields * 2);
+                ends = Arrays.copyOf(ends, fields * 2);
+            }
+            starts[fields] = start;
+            ends[fields] = end;
+            fields++;
+        }
+
+        private boolean isBlank() {
+            return fields == 1 && starts[0] == ends[0];
+        }
+    }
+
     /**
      * Reads a CSV file from the given file path and returns its contents.
-     * 
+     * This keeps every row in memory, so large files should use forEachRow instead.
+     *
      * @param filePath the path to the CSV file
      * @return a list of String arrays, where each array represents one row of the CSV
      */
     public static List<String[]> readCSV(String filePath) {
         List<String[]> rows = new ArrayList<>();
+        forEachRow(filePath, row -> rows.add(row.toArray()));
+        return rows;
+    }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
+    /**
+     * Streams every non-blank row of a CSV file to a handler.
+     *
+     * @param filePath the path to the CSV file
+     * @param handler  called once for each row, in file order
+     */
+    public static void forEachRow(String filePath, RowHandler handler) {
+        try (Reader in = new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8)) {
+            parse(in, handler);
+        } catch (IOException e) {
+            System.err.println("Error reading CSV file: " + filePath);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Splits CSV text from a reader into rows.
+     *
+     * @param in      the text to parse
+     * @param handler called once for each non-blank row
+     * @throws IOException if the reader fails
+     */
+    public static void parse(Reader in, RowHandler handler) throws IOException {
+        final int startField = 0, unquoted = 1, quoted = 2, quoteInQuoted = 3;
+
+        char[] buffer = new char[8192];
+        Row row = new Row();
+        long line = 1;
+        row.reset(line);
+
+        int state = startField;
+        int fieldStart = 0;
+        int lastNonSpace = 0;
+        boolean pendingCR = false;
+
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            for (int k = 0; k < n; k++) {
+                char c = buffer[k];
 
-                if (line.trim().isEmpty()) continue;
+                // a \n straight after \r belongs to the same line break
+                if (pendingCR) {
+                    pendingCR = false;
+                    if (c == '\n') continue;
+                }
 
-                String[] parts = Arrays.stream(line.split(","))
-                        .map(String::trim)
-                        .toArray(String[]::new);
+                if (state == quoted) {
+                    if (c == '"') {
+                        state = quoteInQuoted;
+                    } else {
+                        if (c == '\n') line++;
+                        row.append(c);
+                    }
+                    continue;
+                }
 
-                rows.add(parts);
+                if (state == quoteInQuoted) {
+                    if (c == '"') {
+                        row.append('"');
+                        state = quoted;
+                        continue;
+                    }
+                    // closing quote: anything up to the next comma is kept as it was
+                    state = unquoted;
+                    lastNonSpace = row.length;
+                }
 
+                if (c == ',' || c == '\n' || c == '\r') {
+                    row.endField(fieldStart, state == unquoted ? lastNonSpace : fieldStart);
+                    state = startField;
+                    fieldStart = row.length;
+
+                    if (c != ',') {
+                        pendingCR = (c == '\r');
+                        if (!row.isBlank()) handler.handle(row);
+                        row.reset(++line);
+                        fieldStart = 0;
+                    }
+                } else if (state == startField) {
+                    if (c == '"') {
+                        state = quoted;
+                    } else if (!Character.isWhitespace(c)) {
+                        state = unquoted;
+                        row.append(c);
+                        lastNonSpace = row.length;
+                    }
+                } else {
+                    row.append(c);
+                    if (!Character.isWhitespace(c)) lastNonSpace = row.length;
+                }
             }
-        } catch (IOException e) {
-            System.err.println("Error reading CSV file: " + filePath);
-            e.printStackTrace();
         }
-        return rows;
+
+        // last line without a line break
+        if (state != startField || row.fields > 0) {
+            row.endField(fieldStart, state == startField ? fieldStart : (state == unquoted ? lastNonSpace : row.length));
+            if (!row.isBlank()) handler.handle(row);
+        }
     }
 }
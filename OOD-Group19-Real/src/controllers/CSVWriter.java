@@ -1,27 +1,198 @@
 package controllers;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /** A utility class for writing data to CSV (comma-separated value) files.
- * Each row is written as a comma-separated String array.
+ *
+ * Rows are streamed through a 64 KB buffer as they are produced, so saving a
+ * table never needs a second copy of it in memory. Fields that contain a comma,
+ * quote, line break or leading/trailing space are quoted the way CSVReader
+ * expects. The rows go to a temporary file next to the target, which replaces
+ * the target only once every row has been written, so a failed save leaves
+ * the old file as it was.
  */
-public class CSVWriter {
+public class CSVWriter implements Closeable {
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    /** Writes the rows of one file, e.g. a loop over a list calling writeRow(). */
+    public interface RowSource {
+        void writeRows(CSVWriter out) throws IOException;
+    }
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final Writer out;
+    private boolean committed;
 
     /**
-     * Writes data to a CSV file at the given file path.
+     * Opens a writer for a CSV file. Nothing replaces the file until commit() is called.
      *
      * @param filePath the path to the output CSV file
-     * @param data a list of String arrays, where each array represents one row
+     * @throws IOException if the temporary file cannot be created
      */
-    public static void writeCSV(String filePath, List<String[]> data) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(filePath))) {
-            for (String[] row : data) {
-                pw.println(String.join(",", row));
+    public CSVWriter(String filePath) throws IOException {
+        this.target = Paths.get(filePath).toAbsolutePath();
+        this.temp = createTemp(target);
+        this.channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1), BUFFER_CHARS);
+    }
+
+    /**
+     * Writes one row.
+     *
+     * @param fields the values of the row; null is written as an empty field
+     * @throws IOException if the row cannot be written
+     */
+    public void writeRow(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) out.write(',');
+            writeField(out, fields[i]);
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Flushes every row to disk and replaces the target file with the new contents.
+     *
+     * @throws IOException if the file cannot be written or replaced
+     */
+    public void commit() throws IOException {
+        out.flush();
+        channel.force(true);
+        out.close();
+        replace(temp, target);
+        committed = true;
+    }
+
+    /**
+     * Creates an empty temporary file next to a target. Unlike Files.createTempFile,
+     * which makes the file readable by its owner only, the file gets the default
+     * permissions of a new file, so a target written for the first time gets them too.
+     *
+     * @param target the file the temporary file will replace
+     * @return the new, empty temporary file
+     * @throws IOException if the file cannot be created
+     */
+    static Path createTemp(Path target) throws IOException {
+        while (true) {
+            String name = target.getFileName() + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp";
+            try {
+                return Files.createFile(target.resolveSibling(name));
+            } catch (FileAlreadyExistsException e) {
+                // another writer picked the same name; try again
             }
+        }
+    }
+
+    /**
+     * Moves a finished temporary file over its target, atomically where the file
+     * system allows it. An existing target's POSIX permissions are copied to the
+     * new file first, so rewriting a file never changes who can read it.
+     *
+     * @param temp   the finished temporary file
+     * @param target the file to replace
+     * @throws IOException if the file cannot be replaced
+     */
+    static void replace(Path temp, Path target) throws IOException {
+        if (Files.exists(target) && Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Closes the writer. If commit() was not called the temporary file is deleted and the target is untouched. */
+    @Override
+    public void close() throws IOException {
+        if (committed) return;
+        try {
+            out.close();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes a CSV file from a source of rows.
+     *
+     * @param filePath the path to the output CSV file
+     * @param rows     writes the rows, header first
+     * @return true if the whole file was written and replaced the old one
+     */
+    public static boolean write(String filePath, RowSource rows) {
+        try (CSVWriter writer = new CSVWriter(filePath)) {
+            rows.writeRows(writer);
+            writer.commit();
+            return true;
         } catch (IOException e) {
             System.err.println("Error writing to CSV file: " + filePath);
             e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Writes data to a CSV file at the given file path.
+     *
+     * @param filePath the path to the output CSV file
+     * @param data a list of String arrays, where each array represents one row
+     * @return true if the whole file was written
+     */
+    public static boolean writeCSV(String filePath, List<String[]> data) {
+        return write(filePath, out -> {
+            for (String[] row : data) {
+                out.writeRow(row);
+            }
+        });
+    }
+
+    /**
+     * Quotes a value if CSVReader would otherwise read it back differently.
+     *
+     * @param value the value to write, may be null
+     * @return the value as a CSV field
+     */
+    static String escape(String value) {
+        if (value == null) return "";
+        if (!needsQuotes(value)) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void writeField(Writer out, String value) throws IOException {
+        if (value == null) return;
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        int n = value.length();
+        if (n == 0) return false;
+        if (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(n - 1))) return true;
+        for (int i = 0; i < n; i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
         }
+        return false;
     }
 }
\ No newline at end of file
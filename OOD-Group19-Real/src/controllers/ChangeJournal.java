@@ -0,0 +1,194 @@
+package controllers;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only log of the changes made to one CSV file since it was last
+ * written in full.
+ *
+ * Each change is one CSV line (an operation name followed by its fields) that
+ * is appended and forced to disk before the change is reported as saved, so an
+ * edit costs the same however big the base file is. When the data is loaded
+ * again the base file is read first and the journal is replayed on top of it.
+ * Writing the base file in full (compaction) deletes the journal.
+ *
+ * The journal for "data/sessions.csv" is "data/sessions.csv.journal". Its first
+ * line is "BASE,size,checksum" for the base file the changes were made on top
+ * of. A journal whose base line does not match the base file on disk, e.g. one
+ * already folded in by a compaction that stopped before deleting it, is
+ * ignored on replay and started again on the next append.
+ *
+ * Replay stops at the first line that cannot be applied: every later change
+ * was made on top of it, so applying them without it would give a timetable
+ * nobody ever saw.
+ */
+public class ChangeJournal {
+
+    private final File base;
+    private final File journal;
+    private FileChannel out;
+    private int records;
+
+    /**
+     * Creates the journal for a base CSV file. Nothing is written until the first append.
+     *
+     * @param baseFile the CSV file the changes apply to
+     */
+    public ChangeJournal(String baseFile) {
+        this.base = new File(baseFile);
+        this.journal = journalFile(baseFile);
+    }
+
+    /**
+     * Gets the journal file that belongs to a base CSV file.
+     *
+     * @param baseFile the CSV file
+     * @return the journal file next to it
+     */
+    public static File journalFile(String baseFile) {
+        return new File(baseFile + ".journal");
+    }
+
+    /**
+     * Appends one change and forces it to disk.
+     *
+     * @param fields the operation name followed by its values
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void append(String... fields) throws IOException {
+        if (out == null) open();
+        write(fields);
+        records++;
+    }
+
+    /**
+     * Opens the journal for appending. A journal made on top of another version
+     * of the base file is thrown away and started again with a new base line.
+     */
+    private void open() throws IOException {
+        String[] header = header(base);
+        boolean fresh = !(journal.isFile() && matches(journal, header));
+        if (fresh) Files.deleteIfExists(journal.toPath());
+
+        out = FileChannel.open(journal.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (fresh) write(header);
+    }
+
+    private void write(String... fields) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) line.append(',');
+            line.append(CSVWriter.escape(fields[i]));
+        }
+        line.append('\n');
+
+        ByteBuffer bytes = ByteBuffer.wrap(line.toString().getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) out.write(bytes);
+        out.force(false);
+    }
+
+    /** @return the number of changes appended by this process */
+    public synchronized int size() {
+        return records;
+    }
+
+    /** @return true if there are logged changes not yet folded into the base file */
+    public synchronized boolean hasChanges() {
+        return journal.isFile();
+    }
+
+    /**
+     * Deletes the journal once the base file has been written in full.
+     *
+     * @throws IOException if the journal cannot be deleted
+     */
+    public synchronized void discard() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+        Files.deleteIfExists(journal.toPath());
+        records = 0;
+    }
+
+    /**
+     * Replays the logged changes of a base file, oldest first. Nothing is
+     * replayed if the journal was made on top of another version of the base
+     * file. A line that cannot be applied, e.g. one cut short by a crash, stops
+     * the replay with a warning, and the lines after it are not applied.
+     *
+     * @param baseFile the CSV file the changes apply to
+     * @param handler  applies one change; field 0 is the operation name
+     */
+    public static void replay(String baseFile, CSVReader.RowHandler handler) {
+        File journal = journalFile(baseFile);
+        if (!journal.isFile()) return;
+
+        String[] header;
+        try {
+            header = header(new File(baseFile));
+        } catch (IOException e) {
+            System.err.println("Could not read " + baseFile + ", ignoring " + journal);
+            return;
+        }
+        if (!matches(journal, header)) {
+            return; // made on another version of the base file, e.g. left behind by an interrupted compaction
+        }
+
+        boolean[] stopped = {false};
+        CSVReader.forEachRow(journal.getPath(), row -> {
+            if (stopped[0] || row.getLineNumber() == 1) return;
+            try {
+                handler.handle(row);
+            } catch (RuntimeException e) {
+                stopped[0] = true;
+                System.err.println("Stopping at bad journal entry on line " + row.getLineNumber()
+                        + " of " + journal + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Builds the base line of a journal: the size and CRC-32C of the base file,
+     * or 0 and 0 if there is no base file yet.
+     */
+    private static String[] header(File base) throws IOException {
+        CRC32C crc = new CRC32C();
+        long size = 0;
+        if (base.isFile()) {
+            try (InputStream in = Files.newInputStream(base.toPath())) {
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, n);
+                    size += n;
+                }
+            }
+        }
+        return new String[]{"BASE", String.valueOf(size), Long.toHexString(crc.getValue())};
+    }
+
+    /** Checks if the first line of a journal is the given base line. */
+    private static boolean matches(File journal, String[] header) {
+        try (BufferedReader in = Files.newBufferedReader(journal.toPath(), StandardCharsets.UTF_8)) {
+            return String.join(",", header).equals(in.readLine());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "journal for " + base;
+    }
+}
@@ -0,0 +1,309 @@
+package controllers;
+
+import Model.Academic.Module;
+import Model.Timetable.ScheduledSession;
+import Model.Timetable.Timeslot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ready-made timetables for every course and cohort of students. A course is
+ * one programme year in one semester, and a cohort is one group of a course.
+ *
+ * Sessions are split by course in one pass over the timetable, so the sessions
+ * of a course are found with one lookup on (programme, year, semester). Every
+ * student in a cohort sees the same sessions, so each cohort's timetable is
+ * worked out once from its course, sorted by day and start hour, and kept until
+ * the sessions change. Course queries, including ones that match any programme,
+ * year or semester, are cached the same way.
+ *
+ * DataManager tells this class about every change to its sessions list.
+ * Adding or removing a session only patches the views it belongs to, and
+ * replacing the list drops them. The views also remember the list's change
+ * count they match, and are rebuilt if more than one change went by.
+ */
+public class CohortTimetables {
+
+    /** Orders sessions by day of the week and then by start hour. */
+    static final Comparator<ScheduledSession> BY_DAY_AND_HOUR = Comparator
+            .comparingInt((ScheduledSession s) -> dayOrder(s.getTimeslot()))
+            .thenComparingInt(s -> s.getTimeslot().getStartHour());
+
+    /** The sessions of one programme year in one semester, plus the views of its groups. */
+    private static class Course {
+        final String programme;
+        final int year;
+        final int semester;
+        final List<ScheduledSession> sessions = new ArrayList<>();
+        final Map<String, List<ScheduledSession>> groups = new HashMap<>();
+
+        Course(String programme, int year, int semester) {
+            this.programme = programme;
+            this.year = year;
+            this.semester = semester;
+        }
+    }
+
+    /** A cached course query; a null part matches anything. */
+    private static class Query {
+        final String programme;
+        final Integer year;
+        final Integer semester;
+        final List<ScheduledSession> view = new ArrayList<>();
+
+        Query(String programme, Integer year, Integer semester) {
+            this.programme = programme;
+            this.year = year;
+            this.semester = semester;
+        }
+
+        boolean matches(Course c) {
+            return (programme == null || programme.equals(c.programme))
+                    && (year == null || year == c.year)
+                    && (semester == null || semester == c.semester);
+        }
+    }
+
+    private final DataManager data;
+
+    /** Course key to course, or null until first needed. */
+    private Map<String, Course> courses;
+    private final Map<String, Query> queries = new HashMap<>();
+    /** Position of each session in the sessions list, kept for removed sessions in case they are restored. */
+    private final Map<ScheduledSession, Integer> order = new IdentityHashMap<>();
+    private int nextOrder;
+    private final Comparator<ScheduledSession> byOrder = Comparator.comparingInt(order::get);
+    /** Day and start hour, with sessions at the same time kept in timetable order. */
+    private final Comparator<ScheduledSession> byTime = BY_DAY_AND_HOUR.thenComparing(byOrder);
+    /** Version of the sessions list the views match, to catch changes made behind our back. */
+    private long builtVersion;
+
+    /**
+     * Creates the views for the sessions of a data manager. Nothing is built until the first lookup.
+     *
+     * @param data the data manager holding the sessions
+     */
+    public CohortTimetables(DataManager data) {
+        this.data = data;
+    }
+
+    /**
+     * Gets the timetable of one cohort, sorted by day and start hour.
+     *
+     * @param programmeId the programme ID
+     * @param year        the year of study
+     * @param semester    the semester
+     * @param groupId     the student group, e.g. "G1"
+     * @return the cohort's sessions, which must not be modified
+     */
+    public synchronized List<ScheduledSession> get(String programmeId, int year, int semester, String groupId) {
+        ensureBuilt();
+
+        Course course = courses.get(courseKey(programme(programmeId), year, semester));
+        if (course == null) return Collections.emptyList();
+
+        String group = normalize(groupId);
+        List<ScheduledSession> view = course.groups.get(group);
+        if (view == null) {
+            view = new ArrayList<>();
+            for (ScheduledSession s : course.sessions) {
+                if (inGroup(s, group)) view.add(s);
+            }
+            view.sort(byTime);
+            course.groups.put(group, view);
+        }
+        return Collections.unmodifiableList(view);
+    }
+
+    /**
+     * Gets every session of the matching courses, sorted by day and start hour.
+     *
+     * @param programmeId the programme ID, or null or "ALL" for every programme
+     * @param year        the year of study, or null for every year
+     * @param semester    the semester, or null for every semester
+     * @return the matching sessions, which must not be modified
+     */
+    public synchronized List<ScheduledSession> getCourse(String programmeId, Integer year, Integer semester) {
+        ensureBuilt();
+
+        String programme = (programmeId == null || programmeId.trim().equalsIgnoreCase("ALL"))
+                ? null : programme(programmeId);
+        String key = (programme == null ? "*" : programme) + "|"
+                + (year == null ? "*" : year) + "|" + (semester == null ? "*" : semester);
+
+        Query query = queries.get(key);
+        if (query == null) {
+            query = new Query(programme, year, semester);
+            if (programme != null && year != null && semester != null) {
+                Course course = courses.get(key);
+                if (course != null) query.view.addAll(course.sessions);
+            } else {
+                for (Course course : courses.values()) {
+                    if (query.matches(course)) query.view.addAll(course.sessions);
+                }
+            }
+            query.view.sort(byTime);
+            queries.put(key, query);
+        }
+        return Collections.unmodifiableList(query.view);
+    }
+
+    /**
+     * Patches the views after a session was appended to the sessions list.
+     *
+     * @param s the new session
+     */
+    synchronized void added(ScheduledSession s) {
+        if (!onlyChange()) return;
+        String key = courseKey(s);
+        if (key == null) return;
+
+        order.put(s, nextOrder++);
+        insert(s, key);
+    }
+
+    /**
+     * Patches the views after a session was taken out of the sessions list.
+     *
+     * @param s the removed session
+     */
+    synchronized void removed(ScheduledSession s) {
+        if (!onlyChange()) return;
+        String key = courseKey(s);
+        if (key == null) return;
+
+        Course course = courses.get(key);
+        if (course == null) return;
+        removeSame(course.sessions, s);
+        for (List<ScheduledSession> view : course.groups.values()) removeSame(view, s);
+        for (Query query : queries.values()) {
+            if (query.matches(course)) removeSame(query.view, s);
+        }
+    }
+
+    /**
+     * Patches the views after a session was put back at its old place in the
+     * sessions list, e.g. when an update is rolled back.
+     *
+     * @param s the restored session
+     */
+    synchronized void restored(ScheduledSession s) {
+        if (!onlyChange()) return;
+        String key = courseKey(s);
+        if (key == null) return;
+        order.putIfAbsent(s, nextOrder++);
+        insert(s, key);
+    }
+
+    /**
+     * Drops every view after the sessions list was changed in bulk, e.g. by the generator.
+     */
+    synchronized void clear() {
+        courses = null;
+        queries.clear();
+    }
+
+    /**
+     * Checks that the session being patched in is the one change to the list
+     * since the views were last up to date. If anything else changed too, the
+     * views are dropped and built again on the next lookup.
+     */
+    private boolean onlyChange() {
+        if (courses == null) return false;
+        long version = data.getSessionsVersion();
+        if (builtVersion != version - 1) {
+            courses = null;
+            queries.clear();
+            return false;
+        }
+        builtVersion = version;
+        return true;
+    }
+
+    private void ensureBuilt() {
+        if (courses != null && builtVersion == data.getSessionsVersion()) return;
+
+        queries.clear();
+        order.clear();
+        nextOrder = 0;
+        courses = new HashMap<>();
+        for (ScheduledSession s : data.sessions) {
+            order.put(s, nextOrder++);
+            String key = courseKey(s);
+            if (key != null) courses.computeIfAbsent(key, k -> newCourse(s.getModule())).sessions.add(s);
+        }
+        builtVersion = data.getSessionsVersion();
+    }
+
+    private void insert(ScheduledSession s, String key) {
+        Course course = courses.computeIfAbsent(key, k -> newCourse(s.getModule()));
+        insertSorted(course.sessions, s, byOrder);
+        for (Map.Entry<String, List<ScheduledSession>> e : course.groups.entrySet()) {
+            if (inGroup(s, e.getKey())) insertSorted(e.getValue(), s, byTime);
+        }
+        for (Query query : queries.values()) {
+            if (query.matches(course)) insertSorted(query.view, s, byTime);
+        }
+    }
+
+    private static void insertSorted(List<ScheduledSession> view, ScheduledSession s,
+                                     Comparator<ScheduledSession> by) {
+        int lo = 0, hi = view.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (by.compare(view.get(mid), s) <= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        view.add(lo, s);
+    }
+
+    private static void removeSame(List<ScheduledSession> list, ScheduledSession s) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == s) {
+                list.remove(i);
+                return;
+            }
+        }
+    }
+
+    private static boolean inGroup(ScheduledSession s, String group) {
+        String g = normalize(s.getGroupId());
+        return g.equals("ALL") || g.equals(group);
+    }
+
+    private static Course newCourse(Module m) {
+        return new Course(programme(m.getProgrammeId()), m.getYear(), m.getSemester());
+    }
+
+    /** Gets the course key of a session, or null if it cannot be shown in any timetable. */
+    private static String courseKey(ScheduledSession s) {
+        Module m = s.getModule();
+        if (m == null || s.getTimeslot() == null) return null;
+        return courseKey(programme(m.getProgrammeId()), m.getYear(), m.getSemester());
+    }
+
+    private static String courseKey(String programme, int year, int semester) {
+        return programme + "|" + year + "|" + semester;
+    }
+
+    private static String programme(String programmeId) {
+        return (programmeId == null) ? "" : programmeId.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String normalize(String groupId) {
+        return (groupId == null) ? "ALL" : groupId.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /** Converts days into numbers, Monday first. */
+    static int dayOrder(Timeslot t) {
+        if (t == null || t.getDayKey() < 0 || t.getDayKey() > 4) return 99;
+        return t.getDayKey() + 1;
+    }
+}
@@ -0,0 +1,147 @@
+package controllers;
+
+import Model.Timetable.Cohorts;
+import Model.Timetable.KeyDictionary;
+import Model.Timetable.ScheduledSession;
+import Model.Timetable.SessionTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Audits a whole timetable for double bookings of rooms, lecturers and
+ * programme cohorts in one pass over the sessions.
+ *
+ * Sessions are grouped by room, lecturer and cohort (by KeyDictionary key, and
+ * by Cohorts.cohortKey for cohorts), every group is sorted by day and start
+ * hour and then swept from left to right, so only sessions that are still
+ * running on the same day are compared. Each clash is reported as
+ * "a <--> b" with a being the earlier session in the timetable list.
+ *
+ * The audit works on a SessionTable, reading the day, hour and key columns
+ * directly. A list of sessions is copied into a table for the length of the
+ * audit only, so no second copy of the timetable stays in memory.
+ */
+public class ConflictAudit {
+
+    /** The timetable being audited; only held while the audit runs. */
+    private SessionTable table;
+    private List<ScheduledSession> sessions;
+    private final List<String> roomConflicts;
+    private final List<String> lecturerConflicts;
+    private final List<String> cohortConflicts;
+
+    /**
+     * Runs the audit over a list of sessions.
+     *
+     * @param sessions the timetable to check
+     */
+    public ConflictAudit(List<ScheduledSession> sessions) {
+        this(SessionTable.of(sessions), sessions);
+    }
+
+    /**
+     * Runs the audit over a columnar timetable, e.g. one too big to hold as session objects.
+     * Only the sessions named in a conflict are turned into objects.
+     *
+     * @param table the timetable to check
+     */
+    public ConflictAudit(SessionTable table) {
+        this(table, null);
+    }
+
+    private ConflictAudit(SessionTable table, List<ScheduledSession> sessions) {
+        this.table = table;
+        this.sessions = sessions;
+
+        Map<Long, List<Integer>> byRoom = new HashMap<>();
+        Map<Long, List<Integer>> byLecturer = new HashMap<>();
+        Map<Long, List<Integer>> byCohort = new HashMap<>();
+
+        for (int i = 0; i < table.size(); i++) {
+            if (sessions != null && sessions.get(i).getTimeslot() == null) continue;
+            if (table.getDayKey(i) == KeyDictionary.NONE) continue; // no day, so it overlaps nothing
+
+            if (table.getRoomKey(i) != KeyDictionary.NONE) {
+                group(byRoom, table.getRoomKey(i), i);
+            }
+            if (table.getLecturerKey(i) != KeyDictionary.NONE) {
+                group(byLecturer, table.getLecturerKey(i), i);
+            }
+            long cohort = Cohorts.cohortKey(table.getModule(i), table.getGroupKey(i));
+            if (cohort != Cohorts.NONE) {
+                group(byCohort, cohort, i);
+            }
+        }
+
+        roomConflicts = sweep(byRoom, "ROOM CONFLICT: ");
+        lecturerConflicts = sweep(byLecturer, "LECTURER CONFLICT: ");
+        cohortConflicts = sweep(byCohort, "COHORT CONFLICT: ");
+        this.table = null;
+        this.sessions = null;
+    }
+
+    /** @return sessions booked into the same room at overlapping times */
+    public List<String> getRoomConflicts() {
+        return roomConflicts;
+    }
+
+    /** @return sessions given to the same lecturer at overlapping times */
+    public List<String> getLecturerConflicts() {
+        return lecturerConflicts;
+    }
+
+    /** @return sessions of the same programme, year, semester and group at overlapping times */
+    public List<String> getCohortConflicts() {
+        return cohortConflicts;
+    }
+
+    private static void group(Map<Long, List<Integer>> groups, long key, int index) {
+        groups.computeIfAbsent(key, k -> new ArrayList<>()).add(index);
+    }
+
+    /**
+     * Sweeps each group in day and start hour order and collects every overlapping pair,
+     * then formats them in the order a pairwise scan of the list would find them.
+     */
+    private List<String> sweep(Map<Long, List<Integer>> groups, String label) {
+        List<Long> pairs = new ArrayList<>();
+        List<Integer> active = new ArrayList<>();
+
+        for (List<Integer> group : groups.values()) {
+            if (group.size() < 2) continue;
+            group.sort((a, b) -> (table.getDayKey(a) != table.getDayKey(b))
+                    ? Integer.compare(table.getDayKey(a), table.getDayKey(b))
+                    : Integer.compare(table.getStartHour(a), table.getStartHour(b)));
+            active.clear();
+
+            for (int j : group) {
+                int dayJ = table.getDayKey(j);
+                int startJ = table.getStartHour(j);
+                active.removeIf(i -> table.getDayKey(i) != dayJ
+                        || table.getStartHour(i) + table.getDuration(i) <= startJ);
+
+                for (int i : active) {
+                    if (table.overlaps(i, j)) {
+                        pairs.add(((long) Math.min(i, j) << 32) | Math.max(i, j));
+                    }
+                }
+                active.add(j);
+            }
+        }
+
+        Collections.sort(pairs);
+        List<String> conflicts = new ArrayList<>(pairs.size());
+        for (long pair : pairs) {
+            conflicts.add(label + session((int) (pair >>> 32)) + " <--> " + session((int) pair));
+        }
+        return conflicts;
+    }
+
+    private ScheduledSession session(int index) {
+        return (sessions != null) ? sessions.get(index) : table.get(index);
+    }
+}
@@ -0,0 +1,449 @@
+package controllers;
+
+import Model.Academic.Module;
+import Model.People.Lecturer;
+import Model.Room.Room;
+import Model.Timetable.Cohorts;
+import Model.Timetable.KeyDictionary;
+import Model.Timetable.OccupancyIndex;
+import Model.Timetable.ScheduledSession;
+import Model.Timetable.Timeslot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Places one-hour sessions most-constrained-first, the DSatur way of colouring
+ * a conflict graph, for TimetableGenerator's DSATUR engine.
+ *
+ * Every hour to place is a node. Two nodes conflict when they share a lecturer,
+ * the same student group ("G1" clashes with "G1" in any programme), or are both
+ * for "ALL" groups of the same programme/year/semester. These are the rules
+ * OccupancyIndex and ConflictAudit check: an "ALL" session and a group session
+ * of the same course may share an hour. Each node keeps a domain: a bitmap of
+ * the 45 week hours it could still go in, with a free room of the right type
+ * and size.
+ *
+ * Unplaced nodes wait in a priority queue ordered by the number of hours left in
+ * their domain, then by how many nodes they conflict with. The node with the
+ * fewest options is placed next, in the hour with the most free rooms, in the
+ * smallest room that fits. Placing it takes that hour out of the domains of its
+ * neighbours, and out of every node of a room pool once the pool has no room
+ * left in that hour. Only those domains change and are re-queued.
+ *
+ * A node whose domain runs empty is a dead end. The scheduler then undoes its
+ * most recent placements, trying the next hour for each, up to a fixed number
+ * of backtracks in total. After that, a node with no hours left is given up as
+ * unplaced.
+ */
+class DSaturScheduler {
+
+    private static final int SLOTS = OccupancyIndex.DAYS.length * OccupancyIndex.HOURS_PER_DAY;
+    private static final long ALL_SLOTS = (1L << SLOTS) - 1;
+    private static final int[] NO_UNITS = new int[0];
+    /** Backtracks a single dead-end node may cause before it is given up. */
+    private static final int MAX_RETRIES = 8;
+
+    private final List<Room> rooms;
+    private final Random random;
+
+    /** The hours asked for, one entry per addTask call. */
+    private final List<Module> taskModules = new ArrayList<>();
+    private final List<Lecturer> taskLecturers = new ArrayList<>();
+    private final List<String> taskGroups = new ArrayList<>();
+    private final List<int[]> taskShape = new ArrayList<>(); // hours, lab (0/1), capacity
+
+    // one entry per node
+    private int units;
+    private int[] task;
+    private int[] pool;
+    private int[] rank;
+    private int[] degree;
+    private long[] domain;
+    private int[] slot;
+    private int[] room;
+    private boolean[] dropped;
+    private int[] retries;
+    private int[][][] neighbourLists; // per node, the conflict lists it is in (shared arrays)
+    private int[][] cliques;          // per node, the lists whose nodes all clash with each other
+    private int[] cliquePlaced;       // per clique, nodes placed so far
+
+    // rooms
+    private long[] roomBusy;
+    private int[][] poolRooms;   // per pool, room indexes from smallest to largest
+    private int[][] roomPools;   // per room, the pools it belongs to
+    private int[][] poolUnits;   // per pool, the nodes that need it
+    private int[][] poolFree;    // per pool and hour, free rooms left
+    private int[] slotRank;
+
+    // undo trail and decision stack
+    private int[] trailUnit = new int[256];
+    private long[] trailDomain = new long[256];
+    private int trailSize;
+    private int[] decUnit;
+    private long[] decTried;
+    private int[] decTrail;
+    private int depth;
+    private int backtracks;
+    private int maxBacktracks;
+
+    private TreeSet<Integer> queue;
+    private int[] missing;
+
+    /**
+     * @param rooms  the rooms sessions can go in
+     * @param random the source of tie-breaks between equally constrained nodes and hours
+     */
+    DSaturScheduler(List<Room> rooms, Random random) {
+        this.rooms = rooms;
+        this.random = random;
+    }
+
+    /**
+     * Asks for a number of one-hour sessions of a module for a group.
+     *
+     * @return the task number, used to ask how many of its hours were placed
+     */
+    int addTask(Module module, Lecturer lecturer, int hours, boolean lab, String groupId, int capacity) {
+        taskModules.add(module);
+        taskLecturers.add(lecturer);
+        taskGroups.add(groupId);
+        taskShape.add(new int[]{Math.max(hours, 0), lab ? 1 : 0, capacity});
+        return taskModules.size() - 1;
+    }
+
+    /**
+     * Places as many of the asked-for hours as it can.
+     *
+     * @return the placed sessions, in the order their tasks were added
+     */
+    List<ScheduledSession> solve() {
+        build();
+        while (!queue.isEmpty()) {
+            int u = queue.first();
+            if (domain[u] != 0L) {
+                place(u, domain[u], 0L);
+            } else if (hopeless(u) || retries[u] >= MAX_RETRIES || backtracks >= maxBacktracks || !backtrack()) {
+                queue.remove(u);
+                dropped[u] = true;
+            } else {
+                retries[u]++;
+            }
+        }
+
+        List<ScheduledSession> placed = new ArrayList<>();
+        missing = new int[taskShape.size()];
+        for (int u = 0; u < units; u++) {
+            if (slot[u] < 0) {
+                missing[task[u]]++;
+                continue;
+            }
+            int t = task[u];
+            int day = slot[u] / OccupancyIndex.HOURS_PER_DAY;
+            int hour = OccupancyIndex.FIRST_HOUR + slot[u] % OccupancyIndex.HOURS_PER_DAY;
+            placed.add(new ScheduledSession(taskModules.get(t), taskLecturers.get(t), rooms.get(room[u]),
+                    new Timeslot(OccupancyIndex.DAYS[day], hour, 1), taskGroups.get(t)));
+        }
+        return placed;
+    }
+
+    /** @return how many hours of a task could not be placed */
+    int unplacedHours(int taskNumber) {
+        return missing[taskNumber];
+    }
+
+    /** Expands the tasks into nodes and sets up the conflict lists, room pools and domains. */
+    private void build() {
+        units = 0;
+        for (int[] shape : taskShape) units += shape[0];
+        task = new int[units];
+        pool = new int[units];
+        rank = new int[units];
+        degree = new int[units];
+        domain = new long[units];
+        slot = new int[units];
+        room = new int[units];
+        dropped = new boolean[units];
+        retries = new int[units];
+        neighbourLists = new int[units][][];
+        Arrays.fill(slot, -1);
+
+        // room pools, one per (lab, capacity) asked for
+        Map<Long, Integer> poolIds = new HashMap<>();
+        List<List<Integer>> poolRoomList = new ArrayList<>();
+        List<List<Integer>> poolUnitList = new ArrayList<>();
+
+        // conflict lists: lecturer, group, "ALL" sessions of a course
+        Map<Integer, List<Integer>> byLecturer = new HashMap<>();
+        Map<Integer, List<Integer>> byGroup = new HashMap<>();
+        Map<Long, List<Integer>> byCourseAll = new HashMap<>();
+
+        int tasks = taskShape.size();
+        int[] lecturerOf = new int[tasks];
+        int[] groupOf = new int[tasks];
+        long[] courseOf = new long[tasks];
+        int u = 0;
+        for (int t = 0; t < tasks; t++) {
+            int[] shape = taskShape.get(t);
+            long poolId = ((long) shape[1] << 32) | shape[2];
+            Integer p = poolIds.get(poolId);
+            if (p == null) {
+                p = poolIds.size();
+                poolIds.put(poolId, p);
+                poolRoomList.add(roomsFor(shape[1] == 1, shape[2]));
+                poolUnitList.add(new ArrayList<>());
+            }
+
+            Module m = taskModules.get(t);
+            int lecturer = taskLecturers.get(t).getLecturerKey();
+            int group = KeyDictionary.GROUPS.intern(taskGroups.get(t));
+            if (group == KeyDictionary.NONE) group = KeyDictionary.ALL_GROUPS;
+            long course = Cohorts.courseKey(m);
+            lecturerOf[t] = lecturer;
+            groupOf[t] = group;
+            courseOf[t] = course;
+
+            for (int h = 0; h < shape[0]; h++, u++) {
+                task[u] = t;
+                pool[u] = p;
+                poolUnitList.get(p).add(u);
+                byLecturer.computeIfAbsent(lecturer, k -> new ArrayList<>()).add(u);
+                if (group != KeyDictionary.ALL_GROUPS) {
+                    byGroup.computeIfAbsent(group, k -> new ArrayList<>()).add(u);
+                } else if (course >= 0) {
+                    byCourseAll.computeIfAbsent(course, k -> new ArrayList<>()).add(u);
+                }
+            }
+        }
+
+        // an "ALL" node conflicts with the course's other "ALL" nodes, a group node with its group
+        Map<List<Integer>, int[]> arrays = new IdentityHashMap<>();
+        Map<List<Integer>, Integer> cliqueIds = new IdentityHashMap<>();
+        cliques = new int[units][];
+        u = 0;
+        for (int t = 0; t < tasks; t++) {
+            boolean all = groupOf[t] == KeyDictionary.ALL_GROUPS;
+            long course = courseOf[t];
+            int[][] lists = {
+                    toArray(arrays, byLecturer.get(lecturerOf[t])),
+                    toArray(arrays, all ? null : byGroup.get(groupOf[t])),
+                    toArray(arrays, (course < 0 || !all) ? null : byCourseAll.get(course))
+            };
+            // one lecturer, one group and a course's "ALL" hours each take a different hour
+            int[] clique = {
+                    cliqueId(cliqueIds, byLecturer.get(lecturerOf[t])),
+                    cliqueId(cliqueIds, all ? null : byGroup.get(groupOf[t])),
+                    cliqueId(cliqueIds, (course < 0 || !all) ? null : byCourseAll.get(course))
+            };
+            for (int h = 0; h < taskShape.get(t)[0]; h++, u++) {
+                neighbourLists[u] = lists;
+                cliques[u] = clique;
+                degree[u] = lists[0].length + lists[1].length + lists[2].length;
+            }
+        }
+
+        cliquePlaced = new int[cliqueIds.size()];
+
+        roomBusy = new long[rooms.size()];
+        poolRooms = new int[poolRoomList.size()][];
+        poolUnits = new int[poolRoomList.size()][];
+        poolFree = new int[poolRoomList.size()][SLOTS];
+        List<List<Integer>> roomPoolList = new ArrayList<>();
+        for (int r = 0; r < rooms.size(); r++) roomPoolList.add(new ArrayList<>());
+        for (int p = 0; p < poolRooms.length; p++) {
+            poolRooms[p] = toArray(null, poolRoomList.get(p));
+            poolUnits[p] = toArray(null, poolUnitList.get(p));
+            Arrays.fill(poolFree[p], poolRooms[p].length);
+            for (int r : poolRooms[p]) roomPoolList.get(r).add(p);
+        }
+        roomPools = new int[rooms.size()][];
+        for (int r = 0; r < rooms.size(); r++) roomPools[r] = toArray(null, roomPoolList.get(r));
+
+        // random tie-breaks, so each seed gives its own timetable
+        slotRank = shuffled(SLOTS);
+        int[] order = shuffled(units);
+        for (int i = 0; i < units; i++) rank[order[i]] = i;
+
+        queue = new TreeSet<>((a, b) -> {
+            int c = Integer.compare(Long.bitCount(domain[a]), Long.bitCount(domain[b]));
+            if (c == 0) c = Integer.compare(degree[b], degree[a]);
+            return (c != 0) ? c : Integer.compare(rank[a], rank[b]);
+        });
+        for (u = 0; u < units; u++) {
+            domain[u] = (poolRooms[pool[u]].length > 0) ? ALL_SLOTS : 0L;
+            queue.add(u);
+        }
+
+        decUnit = new int[units];
+        decTried = new long[units];
+        decTrail = new int[units];
+        depth = 0;
+        trailSize = 0;
+        backtracks = 0;
+        maxBacktracks = Math.max(1000, 2 * units);
+    }
+
+    /** Places a node in the best of the given hours and records the decision. */
+    private void place(int u, long choices, long tried) {
+        int t = bestSlot(pool[u], choices);
+        long bit = 1L << t;
+
+        int r = -1;
+        for (int candidate : poolRooms[pool[u]]) {
+            if ((roomBusy[candidate] & bit) == 0L) {
+                r = candidate;
+                break;
+            }
+        }
+
+        decUnit[depth] = u;
+        decTried[depth] = tried | bit;
+        decTrail[depth] = trailSize;
+        depth++;
+
+        queue.remove(u);
+        slot[u] = t;
+        room[u] = r;
+        for (int c : cliques[u]) if (c >= 0) cliquePlaced[c]++;
+        roomBusy[r] |= bit;
+        for (int p : roomPools[r]) {
+            if (--poolFree[p][t] == 0) {
+                for (int v : poolUnits[p]) remove(v, bit);
+            }
+        }
+        for (int[] list : neighbourLists[u]) {
+            for (int v : list) remove(v, bit);
+        }
+    }
+
+    /**
+     * Undoes decisions, newest first, until one of them can take another hour.
+     *
+     * @return false if there was nothing to undo
+     */
+    private boolean backtrack() {
+        if (depth == 0) return false;
+        while (depth > 0) {
+            backtracks++;
+            depth--;
+            int u = decUnit[depth];
+            long tried = decTried[depth];
+            undo(u);
+
+            long left = domain[u] & ~tried;
+            if (left != 0L) {
+                place(u, left, tried);
+                return true;
+            }
+            if (backtracks >= maxBacktracks) return true;
+        }
+        return true;
+    }
+
+    private void undo(int u) {
+        while (trailSize > decTrail[depth]) {
+            trailSize--;
+            setDomain(trailUnit[trailSize], trailDomain[trailSize]);
+        }
+        long bit = 1L << slot[u];
+        roomBusy[room[u]] &= ~bit;
+        for (int p : roomPools[room[u]]) poolFree[p][slot[u]]++;
+        for (int c : cliques[u]) if (c >= 0) cliquePlaced[c]--;
+        slot[u] = -1;
+        room[u] = -1;
+        queue.add(u);
+    }
+
+    /**
+     * Checks if a dead end cannot be fixed by moving placed nodes: one of the
+     * node's cliques already fills every hour of the week.
+     */
+    private boolean hopeless(int u) {
+        for (int c : cliques[u]) {
+            if (c >= 0 && cliquePlaced[c] >= SLOTS) return true;
+        }
+        return false;
+    }
+
+    /** Takes an hour out of a waiting node's domain, remembering the old domain for undo. */
+    private void remove(int v, long bit) {
+        if (slot[v] >= 0 || dropped[v] || (domain[v] & bit) == 0L) return;
+        if (trailSize == trailUnit.length) {
+            trailUnit = Arrays.copyOf(trailUnit, trailSize * 2);
+            trailDomain = Arrays.copyOf(trailDomain, trailSize * 2);
+        }
+        trailUnit[trailSize] = v;
+        trailDomain[trailSize] = domain[v];
+        trailSize++;
+        setDomain(v, domain[v] & ~bit);
+    }
+
+    /** Changes a domain, moving the node in the queue if it is waiting there. */
+    private void setDomain(int v, long value) {
+        boolean waiting = slot[v] < 0 && !dropped[v];
+        if (waiting) queue.remove(v);
+        domain[v] = value;
+        if (waiting) queue.add(v);
+    }
+
+    /** The hour with the most free rooms left in the pool, ties broken by the seeded hour order. */
+    private int bestSlot(int p, long choices) {
+        int best = -1;
+        for (long rest = choices; rest != 0L; rest &= rest - 1) {
+            int t = Long.numberOfTrailingZeros(rest);
+            if (best < 0 || poolFree[p][t] > poolFree[p][best]
+                    || (poolFree[p][t] == poolFree[p][best] && slotRank[t] < slotRank[best])) {
+                best = t;
+            }
+        }
+        return best;
+    }
+
+    /** Room indexes of the right type and size, smallest first, the same rule as the greedy engine. */
+    private List<Integer> roomsFor(boolean lab, int capacity) {
+        List<Integer> fit = new ArrayList<>();
+        for (int r = 0; r < rooms.size(); r++) {
+            Room room = rooms.get(r);
+            if (room.isLab() != lab || room.getCapacity() < capacity) continue;
+            fit.add(r);
+        }
+        fit.sort((a, b) -> Integer.compare(rooms.get(a).getCapacity(), rooms.get(b).getCapacity()));
+        return fit;
+    }
+
+    private static int cliqueId(Map<List<Integer>, Integer> ids, List<Integer> list) {
+        if (list == null) return -1;
+        return ids.computeIfAbsent(list, k -> ids.size());
+    }
+
+    private int[] shuffled(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    /** Converts a list to an array once, so nodes sharing a list share the array. */
+    private static int[] toArray(Map<List<Integer>, int[]> cache, List<Integer> list) {
+        if (list == null) return NO_UNITS;
+        if (cache != null) {
+            int[] known = cache.get(list);
+            if (known != null) return known;
+        }
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) array[i] = list.get(i);
+        if (cache != null) cache.put(list, array);
+        return array;
+    }
+}
@@ -3,18 +3,33 @@ package controllers;
 import Model.People.Student;
 import Model.People.Lecturer;
 import Model.People.Admin;
+import Model.People.Credential;
+import Model.People.User;
 import Model.Academic.Module;
 import Model.Room.Room;
+import Model.Timetable.KeyDictionary;
 import Model.Timetable.ScheduledSession;
+import Model.Timetable.SessionTable;
 import Model.Timetable.Timeslot;
 import Model.Academic.Programme;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The DataManager class is responsible for loading data from CSV files
  * and converting it into the model objects used throughout the system.
  * It also provides simple lookup utilities for modules, rooms and lecturers.
+ *
+ * Modules, rooms and lecturers are also kept in hash indexes by ID so lookups
+ * do not scan the lists, and every user is added to an account directory used
+ * for logins. The lists should be changed through the add and remove
+ * methods here; code that edits them directly must call reindex() afterwards.
+ *
+ * Edits made through the user interface are appended to a ChangeJournal next
+ * to each CSV file instead of rewriting the whole file, and are replayed when
+ * the file is loaded. compactJournals() folds them back into the CSV files.
  */
 public final class DataManager {
 
@@ -23,30 +38,51 @@ public final class DataManager {
     public List<Room> rooms = new ArrayList<>();
     public List<Module> modules = new ArrayList<>();
     public List<Programme> programmes = new ArrayList<>();
-    public List<ScheduledSession> sessions = new ArrayList<>();
+    private final List<ScheduledSession> sessionList = new ArrayList<>();
+    /** The current timetable, read-only; change it with addSession, removeSession, restoreSession or replaceSessions. */
+    public final List<ScheduledSession> sessions = Collections.unmodifiableList(sessionList);
     public List<Admin> admins = new ArrayList<>();
 
+    /** The header row of a sessions file. */
+    static final String[] SESSION_HEADER =
+            {"sessionId", "moduleCode", "day", "start", "end", "roomId", "lecturerId", "groupId"};
+
+    private final Map<String, Module> moduleIndex = new HashMap<>();
+    private final Map<String, Room> roomIndex = new HashMap<>();
+    private final Map<String, Lecturer> lecturerIndex = new HashMap<>();
+    private final AccountDirectory accounts = new AccountDirectory();
+    private final CohortTimetables cohortTimetables = new CohortTimetables(this);
+    /** Counts every change to the sessions list. */
+    private long sessionsVersion;
+
+    /** One change journal per CSV file that has been edited. */
+    private final Map<String, ChangeJournal> journals = new ConcurrentHashMap<>();
+    /** How to write each journalled CSV file in full. */
+    private final Map<String, Runnable> compactors = new ConcurrentHashMap<>();
+    /** CSV files whose contents plus journal match what is in memory, so changes can just be appended. */
+    private final Set<String> synced = ConcurrentHashMap.newKeySet();
+    /** Users files that still had plain text passwords when loaded, to be written again hashed. */
+    private final Set<String> plainText = ConcurrentHashMap.newKeySet();
+
     /**
      * Loads student data from a CSV file and creates Student objects.
      *
      * @param file the path to the students CSV file
      */
     public void loadStudents(String file) {
-        List<String[]> data = CSVReader.readCSV(file);
-
-        for (String[] row : data) {
-            if (row[0].equalsIgnoreCase("studentId")) continue;
+        CSVReader.forEachRow(file, row -> {
+            if (row.equalsIgnoreCase(0, "studentId")) return;
 
-            String id = row[0];
-            String name = row[1];
-            String email = row[2];
-            String password = row[3];
-            String programme = row[4];
-            int year = Integer.parseInt(row[5]);
-            String groupId = row[6];
+            addStudent(studentFromRow(row, 0, file));
+        });
 
-            students.add(new Student(id, name, email, password, programme, year, groupId));
-        }
+        ChangeJournal.replay(file, row -> {
+            if (row.equalsIgnoreCase(0, "ADD")) addStudent(studentFromRow(row, 1, file));
+            else if (row.equalsIgnoreCase(0, "REMOVE")) removeByEmail(students, row.get(1));
+        });
+        synced.add(file);
+        compactors.put(file, () -> saveStudents(file));
+        if (plainText.remove(file)) saveStudents(file);
     }
 
     /**
@@ -55,13 +91,19 @@ public final class DataManager {
      * @param file the path to the lecturers CSV file
      */
     public void loadLecturers(String file) {
-        List<String[]> data = CSVReader.readCSV(file);
+        CSVReader.forEachRow(file, row -> {
+            if (row.equalsIgnoreCase(0, "lecturerId")) return;
 
-        for (String[] row : data) {
-            if (row[0].equalsIgnoreCase("lecturerId")) continue;
+            addLecturer(lecturerFromRow(row, 0, file));
+        });
 
-            lecturers.add(new Lecturer(row[0], row[1], row[2], row[3], row[4]));
-        }
+        ChangeJournal.replay(file, row -> {
+            if (row.equalsIgnoreCase(0, "ADD")) addLecturer(lecturerFromRow(row, 1, file));
+            else if (row.equalsIgnoreCase(0, "REMOVE")) removeByEmail(lecturers, row.get(1));
+        });
+        synced.add(file);
+        compactors.put(file, () -> saveLecturers(file));
+        if (plainText.remove(file)) saveLecturers(file);
     }
 
     /**
@@ -70,18 +112,16 @@ public final class DataManager {
      * @param file the path to the rooms CSV file
      */
     public void loadRooms(String file) {
-        List<String[]> data = CSVReader.readCSV(file);
-
-        for (String[] row : data) {
-            if (row[0].equalsIgnoreCase("roomId")) continue;
+        CSVReader.forEachRow(file, row -> {
+            if (row.equalsIgnoreCase(0, "roomId")) return;
 
-            String id = row[0];
-            String type = row[1];
-            int capacity = Integer.parseInt(row[2]);
-            String building = row[3];
+            String id = row.get(0);
+            String type = row.get(1);
+            int capacity = row.getInt(2);
+            String building = row.get(3);
 
-            rooms.add(new Room(id, type, capacity, building));
-        }
+            addRoom(new Room(id, type, capacity, building));
+        });
     }
 
     /**
@@ -90,22 +130,20 @@ public final class DataManager {
      * @param file the path to the modules CSV file
      */
     public void loadModules(String file) {
-        List<String[]> data = CSVReader.readCSV(file);
-
-        for (String[] row : data) {
-            if (row[0].equalsIgnoreCase("moduleCode")) continue;
-
-            String code = row[0];
-            String name = row[1];
-            int year = Integer.parseInt(row[2]);
-            int semester = Integer.parseInt(row[3]);
-            String programmeId = row[4];
-            int lec = Integer.parseInt(row[5]);
-            int lab = Integer.parseInt(row[6]);
-            int tut = Integer.parseInt(row[7]);
-
-            modules.add(new Module(name, code, programmeId, year, semester, lec, lab, tut));
-        }
+        CSVReader.forEachRow(file, row -> {
+            if (row.equalsIgnoreCase(0, "moduleCode")) return;
+
+            String code = row.get(0);
+            String name = row.get(1);
+            int year = row.getInt(2);
+            int semester = row.getInt(3);
+            String programmeId = row.get(4);
+            int lec = row.getInt(5);
+            int lab = row.getInt(6);
+            int tut = row.getInt(7);
+
+            addModule(new Module(name, code, programmeId, year, semester, lec, lab, tut));
+        });
     }
 
     /**
@@ -114,13 +152,11 @@ public final class DataManager {
      * @param file the path to the programmes CSV file
      */
     public void loadProgrammes(String file) {
-        List<String[]> data = CSVReader.readCSV(file);
+        CSVReader.forEachRow(file, row -> {
+            if (row.equalsIgnoreCase(0, "programmeId")) return;
 
-        for (String[] row : data) {
-            if (row[0].equalsIgnoreCase("programmeId")) continue;
-
-            programmes.add(new Programme(row[0], row[1]));
-        }
+            programmes.add(new Programme(row.get(0), row.get(1)));
+        });
     }
 
     /**
@@ -132,23 +168,163 @@ public final class DataManager {
      */
     public List<ScheduledSession> loadSessions(String file) {
         List<ScheduledSession> loaded = new ArrayList<>();
-        List<String[]> data = CSVReader.readCSV(file);
+        CSVReader.forEachRow(file, row -> {
+            if (row.equalsIgnoreCase(0, "sessionId")) return;
+
+            loaded.add(sessionFromRow(row));
+        });
+        replaySessions(file, loaded);
+        return loaded;
+    }
+
+    /**
+     * Loads scheduled sessions like loadSessions, but splits the file into chunks
+     * that are parsed on several threads. Meant for very large session files.
+     *
+     * @param file the path to the sessions CSV file
+     * @return a list of ScheduledSession objects in file order
+     */
+    public List<ScheduledSession> loadSessionsParallel(String file) {
+        List<ScheduledSession> loaded = new ParallelSessionLoader(this).load(file);
+        replaySessions(file, loaded);
+        return loaded;
+    }
 
-        for (String[] row : data) {
-            if (row[0].equalsIgnoreCase("sessionId")) continue;
+    /**
+     * Loads scheduled sessions straight into a columnar SessionTable, without
+     * creating a ScheduledSession or Timeslot object per row. Meant for session
+     * files too big to hold as objects.
+     *
+     * @param file the path to the sessions CSV file
+     * @return the sessions in file order, with the file's journal applied
+     */
+    public SessionTable loadSessionTable(String file) {
+        SessionTable table = new SessionTable();
+        CSVReader.forEachRow(file, row -> {
+            if (row.equalsIgnoreCase(0, "sessionId")) return;
 
-            Module module = findModule(row[1]);
-            int start = Integer.parseInt(row[3]);
-            int end = Integer.parseInt(row[4]);
-            int duration = end - start;
-            Timeslot timeslot = new Timeslot(row[2], start, duration);
-            Room room = findRoom(row[5]);
-            Lecturer lecturer = findLecturer(row[6]);
-            String groupId = "ALL";
+            addSessionRow(table, row, 1);
+        });
+        ChangeJournal.replay(file, row -> {
+            if (row.equalsIgnoreCase(0, "ADD")) {
+                addSessionRow(table, row, 1);
+            } else if (row.equalsIgnoreCase(0, "REMOVE")) {
+                table.remove(indexOfRow(table, row, 1));
+            } else if (row.equalsIgnoreCase(0, "UPDATE")) {
+                table.remove(indexOfRow(table, row, 8));
+                addSessionRow(table, row, 1);
+            }
+        });
+        return table;
+    }
 
-            loaded.add(new ScheduledSession(module, lecturer, room, timeslot, groupId));
+    /** Adds the seven sessions file columns of a row from column first on to a table, resolving links like sessionFromRow. */
+    private void addSessionRow(SessionTable table, CSVReader.Row row, int first) {
+        int start = row.getInt(first + 2);
+        int end = row.getInt(first + 3);
+        String groupId = (row.size() > first + 6 && !row.get(first + 6).isEmpty()) ? row.get(first + 6) : "ALL";
+        table.add(findModule(row.get(first)), findLecturer(row.get(first + 5)), findRoom(row.get(first + 4)),
+                KeyDictionary.DAYS.intern(row.get(first + 1)), start, end - start, KeyDictionary.GROUPS.intern(groupId));
+    }
+
+    /** Finds the first table row equal to the seven sessions file columns of a journal row from column first on. */
+    private int indexOfRow(SessionTable table, CSVReader.Row row, int first) {
+        int start = row.getInt(first + 2);
+        int end = row.getInt(first + 3);
+        String groupId = row.get(first + 6).isEmpty() ? "ALL" : row.get(first + 6);
+        int index = table.indexOf(findModule(row.get(first)), findLecturer(row.get(first + 5)),
+                findRoom(row.get(first + 4)), KeyDictionary.DAYS.find(row.get(first + 1)), start, end - start,
+                KeyDictionary.GROUPS.find(groupId));
+        if (index < 0) throw new IllegalStateException("No session matches " + String.join(",", row.toArray()));
+        return index;
+    }
+
+    /**
+     * Applies the journalled session changes of a file to a freshly loaded list.
+     * Sessions are named by their sessions file columns rather than their place
+     * in the list, so an entry means the same session however the list was
+     * ordered when it was written:
+     * <ul>
+     *   <li>ADD, then the seven columns of the new session, which goes to the end</li>
+     *   <li>REMOVE, then the seven columns of the removed session</li>
+     *   <li>UPDATE, then the seven columns of the new session and the seven of the one it replaces</li>
+     * </ul>
+     * REMOVE and UPDATE apply to the first session with the same columns.
+     */
+    private void replaySessions(String file, List<ScheduledSession> loaded) {
+        ChangeJournal.replay(file, row -> {
+            if (row.equalsIgnoreCase(0, "ADD")) {
+                loaded.add(sessionFromRow(row));
+            } else if (row.equalsIgnoreCase(0, "REMOVE")) {
+                loaded.remove(indexOfRow(loaded, row, 1));
+            } else if (row.equalsIgnoreCase(0, "UPDATE")) {
+                int old = indexOfRow(loaded, row, 8);
+                ScheduledSession replacement = sessionFromRow(row);
+                loaded.remove(old);
+                loaded.add(replacement);
+            }
+        });
+    }
+
+    /** Finds the first session whose sessions file columns equal those of a journal row from column first on. */
+    private static int indexOfRow(List<ScheduledSession> sessions, CSVReader.Row row, int first) {
+        for (int i = 0; i < sessions.size(); i++) {
+            String[] fields = sessionFields("", sessions.get(i));
+            boolean same = true;
+            for (int k = 1; k < fields.length && same; k++) {
+                same = fields[k].equals(row.get(first + k - 1));
+            }
+            if (same) return i;
         }
-        return loaded;
+        throw new IllegalStateException("No session matches " + String.join(",", row.toArray()));
+    }
+
+    private Student studentFromRow(CSVReader.Row row, int first, String file) {
+        return new Student(row.get(first), row.get(first + 1), row.get(first + 2),
+                credentialFromRow(row.get(first + 3), file),
+                row.get(first + 4), row.getInt(first + 5), row.get(first + 6));
+    }
+
+    private Lecturer lecturerFromRow(CSVReader.Row row, int first, String file) {
+        return new Lecturer(row.get(first), row.get(first + 1), row.get(first + 2),
+                credentialFromRow(row.get(first + 3), file), row.get(first + 4));
+    }
+
+    private Admin adminFromRow(CSVReader.Row row, int first, String file) {
+        return new Admin(row.get(first), row.get(first + 1), row.get(first + 2),
+                credentialFromRow(row.get(first + 3), file));
+    }
+
+    /**
+     * Reads the password column of a users file or journal. A plain text
+     * password, from a file written before passwords were hashed, is hashed
+     * here and the file is marked to be written again with the hash, so it is
+     * only ever read in plain text once.
+     */
+    private Credential credentialFromRow(String stored, String file) {
+        if (Credential.isEncoded(stored)) return Credential.decode(stored);
+        plainText.add(file);
+        return Credential.hash(stored);
+    }
+
+    /**
+     * Builds a session from one row of a sessions CSV file.
+     * Only reads the lookup indexes, so it is safe to call from several threads.
+     *
+     * @param row the row (sessionId, moduleCode, day, start, end, roomId, lecturerId, groupId)
+     * @return the session
+     */
+    ScheduledSession sessionFromRow(CSVReader.Row row) {
+        Module module = findModule(row.get(1));
+        int start = row.getInt(3);
+        int end = row.getInt(4);
+        int duration = end - start;
+        Timeslot timeslot = new Timeslot(row.get(2), start, duration);
+        Room room = findRoom(row.get(5));
+        Lecturer lecturer = findLecturer(row.get(6));
+        String groupId = (row.size() > 7 && !row.get(7).isEmpty()) ? row.get(7) : "ALL";
+
+        return new ScheduledSession(module, lecturer, room, timeslot, groupId);
     }
 
     /**
@@ -157,13 +333,237 @@ public final class DataManager {
      * @param file the path to the admins CSV file
      */
     public void loadAdmins(String file) {
-        List<String[]> data = CSVReader.readCSV(file);
+        CSVReader.forEachRow(file, row -> {
+            if (row.equalsIgnoreCase(0, "adminId")) return;
+
+            addAdmin(adminFromRow(row, 0, file));
+        });
+
+        ChangeJournal.replay(file, row -> {
+            if (row.equalsIgnoreCase(0, "ADD")) addAdmin(adminFromRow(row, 1, file));
+            else if (row.equalsIgnoreCase(0, "REMOVE")) removeByEmail(admins, row.get(1));
+        });
+        synced.add(file);
+        compactors.put(file, () -> saveAdmins(file));
+        if (plainText.remove(file)) saveAdmins(file);
+    }
+
+    /**
+     * Adds a student to the system.
+     *
+     * @param s the student to add
+     */
+    public void addStudent(Student s) {
+        students.add(s);
+        accounts.add(s);
+    }
+
+    /**
+     * Adds a lecturer and indexes them by lecturer ID.
+     *
+     * @param l the lecturer to add
+     */
+    public void addLecturer(Lecturer l) {
+        lecturers.add(l);
+        lecturerIndex.putIfAbsent(l.getLecturerId(), l);
+        accounts.add(l);
+    }
+
+    /**
+     * Adds an admin to the system.
+     *
+     * @param a the admin to add
+     */
+    public void addAdmin(Admin a) {
+        admins.add(a);
+        accounts.add(a);
+    }
+
+    /**
+     * Adds a room and indexes it by room ID.
+     *
+     * @param r the room to add
+     */
+    public void addRoom(Room r) {
+        rooms.add(r);
+        roomIndex.putIfAbsent(r.getRoomId(), r);
+    }
+
+    /**
+     * Adds a module and indexes it by module code.
+     *
+     * @param m the module to add
+     */
+    public void addModule(Module m) {
+        modules.add(m);
+        moduleIndex.putIfAbsent(m.getModuleCode(), m);
+    }
+
+    /**
+     * Adds a user restored from a snapshot, with the password hash it was saved with.
+     *
+     * @param user the student, lecturer or admin
+     */
+    void addRestoredUser(User user) {
+        if (user instanceof Student s) students.add(s);
+        else if (user instanceof Lecturer l) {
+            lecturers.add(l);
+            lecturerIndex.putIfAbsent(l.getLecturerId(), l);
+        } else if (user instanceof Admin a) admins.add(a);
+
+        accounts.add(user);
+    }
+
+    /**
+     * Saves every loaded entity and session to a binary snapshot file.
+     *
+     * @param file the snapshot file to write
+     */
+    public void saveSnapshot(String file) {
+        try {
+            DataSnapshot.write(this, file);
+        } catch (IOException e) {
+            System.err.println("Error writing snapshot: " + file);
+            e.printStackTrace();
+        }
+    }
 
-        for (String[] row : data) {
-            if (row[0].equalsIgnoreCase("adminId")) continue;
+    /**
+     * Loads every entity and session from a binary snapshot file.
+     * Should be called on an empty DataManager instead of the load methods.
+     *
+     * @param file the snapshot file to read
+     * @return true if the snapshot was read, false if it is missing, from another version or damaged
+     */
+    public boolean loadSnapshot(String file) {
+        try {
+            return DataSnapshot.read(this, file);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not read snapshot " + file + ", loading CSV files instead");
+            return false;
+        }
+    }
 
-            admins.add(new Admin(row[0], row[1], row[2], row[3]));
+    /**
+     * Removes every student, lecturer and admin with the given email.
+     *
+     * @param email the email to remove, compared ignoring case
+     * @return true if at least one user was removed
+     */
+    public boolean removeUsersByEmail(String email) {
+        boolean removed = removeByEmail(students, email);
+        removed = removeByEmail(lecturers, email) || removed;
+        removed = removeByEmail(admins, email) || removed;
+        return removed;
+    }
+
+    /** Removes users with an email from one list, keeping the indexes in step. */
+    private <U extends User> boolean removeByEmail(List<U> users, String email) {
+        boolean removed = false;
+        for (Iterator<U> it = users.iterator(); it.hasNext(); ) {
+            U u = it.next();
+            if (u.getEmail().equalsIgnoreCase(email)) {
+                it.remove();
+                accounts.remove(u);
+                removed = true;
+            }
+        }
+        if (removed && users == lecturers) {
+            lecturerIndex.clear();
+            for (Lecturer l : lecturers) lecturerIndex.putIfAbsent(l.getLecturerId(), l);
         }
+        return removed;
+    }
+
+    /**
+     * Rebuilds the module, room and lecturer indexes and the account directory
+     * from the public lists. The first entry with a given ID wins, the same as a
+     * scan of the list.
+     */
+    public void reindex() {
+        moduleIndex.clear();
+        roomIndex.clear();
+        lecturerIndex.clear();
+        for (Module m : modules) moduleIndex.putIfAbsent(m.getModuleCode(), m);
+        for (Room r : rooms) roomIndex.putIfAbsent(r.getRoomId(), r);
+        for (Lecturer l : lecturers) lecturerIndex.putIfAbsent(l.getLecturerId(), l);
+
+        accounts.clear();
+        for (Student s : students) accounts.add(s);
+        for (Lecturer l : lecturers) accounts.add(l);
+        for (Admin a : admins) accounts.add(a);
+    }
+
+    /**
+     * Gets the directory of every user account, kept up to date by the add and remove methods.
+     *
+     * @return the account directory
+     */
+    public AccountDirectory getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Gets the sorted timetable of every student cohort. It is kept up to date
+     * by the session methods below.
+     *
+     * @return the cohort timetables
+     */
+    public CohortTimetables getCohortTimetables() {
+        return cohortTimetables;
+    }
+
+    /**
+     * Appends a session to the timetable.
+     *
+     * @param s the new session
+     */
+    public void addSession(ScheduledSession s) {
+        sessionList.add(s);
+        sessionsVersion++;
+        cohortTimetables.added(s);
+    }
+
+    /**
+     * Removes the session at an index of the timetable.
+     *
+     * @param index the index in the sessions list
+     * @return the removed session
+     */
+    public ScheduledSession removeSession(int index) {
+        ScheduledSession s = sessionList.remove(index);
+        sessionsVersion++;
+        cohortTimetables.removed(s);
+        return s;
+    }
+
+    /**
+     * Puts a removed session back at its old index, e.g. when an update is rolled back.
+     *
+     * @param index the index the session had
+     * @param s     the session
+     */
+    public void restoreSession(int index, ScheduledSession s) {
+        sessionList.add(index, s);
+        sessionsVersion++;
+        cohortTimetables.restored(s);
+    }
+
+    /**
+     * Replaces the whole timetable, e.g. with a generated or loaded one.
+     *
+     * @param replacement the new sessions, in order
+     */
+    public void replaceSessions(Collection<ScheduledSession> replacement) {
+        sessionList.clear();
+        sessionList.addAll(replacement);
+        sessionsVersion++;
+        cohortTimetables.clear();
+    }
+
+    /** @return a number that changes whenever the sessions list is changed */
+    long getSessionsVersion() {
+        return sessionsVersion;
     }
 
     /**
@@ -173,10 +573,7 @@ public final class DataManager {
      * @return the matching Module or null if not found
      */
     public Module findModule(String code) {
-        for (Module m : modules)
-            if (m.getModuleCode().equals(code))
-                return m;
-        return null;
+        return moduleIndex.get(code);
     }
 
     /**
@@ -186,10 +583,7 @@ public final class DataManager {
      * @return the matching Room or null if not found
      */
     public Room findRoom(String id) {
-        for (Room r : rooms)
-            if (r.getRoomId().equals(id))
-                return r;
-        return null;
+        return roomIndex.get(id);
     }
 
     /**
@@ -199,68 +593,181 @@ public final class DataManager {
      * @return the matching Lecturer or null if not found
      */
     public Lecturer findLecturer(String id) {
-        for (Lecturer l : lecturers)
-            if (l.getLecturerId().equals(id))
-                return l;
-        return null;
+        return lecturerIndex.get(id);
     }
 
     public void saveSessions(String file) {
-        List<String[]> rows = new ArrayList<>();
-        rows.add(new String[]{"sessionId", "moduleCode", "day", "start", "end", "roomId", "lecturerId", "groupId"});
-
-        int id = 1;
-        for (ScheduledSession s : sessions) {
-            String moduleCode = (s.getModule() != null) ? s.getModule().getModuleCode() : "";
-            String day = (s.getTimeslot() != null) ? s.getTimeslot().getDay() : "";
-            int start = (s.getTimeslot() != null) ? s.getTimeslot().getStartHour() : 0;
-            int end = (s.getTimeslot() != null) ? s.getTimeslot().getStartHour() + s.getTimeslot().getDuration() : start;
-            String roomId = (s.getRoom() != null) ? s.getRoom().getRoomId() : "";
-            String lecturerId = (s.getLecturer() != null) ? s.getLecturer().getLecturerId() : "";
-            String groupId = (s.getGroupId() != null) ? s.getGroupId() : "";
-
-            rows.add(new String[]{
-                    String.valueOf(id++),
-                    moduleCode,
-                    day,
-                    String.valueOf(start),
-                    String.valueOf(end),
-                    roomId,
-                    lecturerId,
-                    groupId
-            });
-        }
-        CSVWriter.writeCSV(file, rows);
+        boolean written = CSVWriter.write(file, out -> {
+            out.writeRow(SESSION_HEADER);
+            int id = 1;
+            for (ScheduledSession s : sessions) {
+                out.writeRow(sessionFields(String.valueOf(id++), s));
+            }
+        });
+        if (written) baseWritten(file);
+    }
+
+    /** Builds the sessions file columns for a session, with the given value in the first column. */
+    static String[] sessionFields(String first, ScheduledSession s) {
+        String moduleCode = (s.getModule() != null) ? s.getModule().getModuleCode() : "";
+        String day = (s.getTimeslot() != null) ? s.getTimeslot().getDay() : "";
+        int start = (s.getTimeslot() != null) ? s.getTimeslot().getStartHour() : 0;
+        int end = (s.getTimeslot() != null) ? s.getTimeslot().getStartHour() + s.getTimeslot().getDuration() : start;
+        String roomId = (s.getRoom() != null) ? s.getRoom().getRoomId() : "";
+        String lecturerId = (s.getLecturer() != null) ? s.getLecturer().getLecturerId() : "";
+        String groupId = (s.getGroupId() != null) ? s.getGroupId() : "";
+
+        return new String[]{
+                first,
+                moduleCode,
+                day,
+                String.valueOf(start),
+                String.valueOf(end),
+                roomId,
+                lecturerId,
+                groupId
+        };
     }
 
     public void saveStudents(String file) {
-    List<String[]> rows = new ArrayList<>();
-    rows.add(new String[]{"studentId","name","email","password","programme","year","groupId"});
-    for (Student s : students) {
-        rows.add(new String[]{
-            s.getId(), s.getName(), s.getEmail(), s.getPassword(),
-            s.getProgrammeID(), String.valueOf(s.getYear()), s.getGroupId()
+        boolean written = CSVWriter.write(file, out -> {
+            out.writeRow("studentId", "name", "email", "passwordHash", "programme", "year", "groupId");
+            for (Student s : students) {
+                out.writeRow(s.getId(), s.getName(), s.getEmail(), encode(s),
+                        s.getProgrammeID(), String.valueOf(s.getYear()), s.getGroupId());
+            }
         });
-    }
-        CSVWriter.writeCSV(file, rows);
+        if (written) baseWritten(file);
     }
 
     public void saveLecturers(String file) {
-        List<String[]> rows = new ArrayList<>();
-        rows.add(new String[]{"lecturerId","name","email","password","department"});
-        for (Lecturer l : lecturers) {
-            rows.add(new String[]{l.getLecturerId(), l.getName(), l.getEmail(), l.getPassword(), l.getDepartment()});
-        }
-        CSVWriter.writeCSV(file, rows);
+        boolean written = CSVWriter.write(file, out -> {
+            out.writeRow("lecturerId", "name", "email", "passwordHash", "department");
+            for (Lecturer l : lecturers) {
+                out.writeRow(l.getLecturerId(), l.getName(), l.getEmail(), encode(l), l.getDepartment());
+            }
+        });
+        if (written) baseWritten(file);
     }
 
     public void saveAdmins(String file) {
-        List<String[]> rows = new ArrayList<>();
-        rows.add(new String[]{"adminId","name","email","password"});
-        for (Admin a : admins) {
-            rows.add(new String[]{a.getAdminId(), a.getName(), a.getEmail(), a.getPassword()});
+        boolean written = CSVWriter.write(file, out -> {
+            out.writeRow("adminId", "name", "email", "passwordHash");
+            for (Admin a : admins) {
+                out.writeRow(a.getAdminId(), a.getName(), a.getEmail(), encode(a));
+            }
+        });
+        if (written) baseWritten(file);
+    }
+
+    /**
+     * Records that the last session in the sessions list was just added.
+     *
+     * @param file the sessions CSV file
+     */
+    public void journalSessionAdded(String file) {
+        ScheduledSession s = sessions.get(sessions.size() - 1);
+        log(file, () -> saveSessions(file), sessionFields("ADD", s));
+    }
+
+    /**
+     * Records that a session was removed from the sessions list.
+     *
+     * @param file    the sessions CSV file
+     * @param removed the session that was removed
+     */
+    public void journalSessionRemoved(String file, ScheduledSession removed) {
+        log(file, () -> saveSessions(file), sessionFields("REMOVE", removed));
+    }
+
+    /**
+     * Records that a session was removed and its replacement, the last session
+     * in the sessions list, added in its place.
+     *
+     * @param file the sessions CSV file
+     * @param old  the session that was replaced
+     */
+    public void journalSessionUpdated(String file, ScheduledSession old) {
+        String[] replacement = sessionFields("UPDATE", sessions.get(sessions.size() - 1));
+        String[] replaced = sessionFields("", old);
+        String[] fields = Arrays.copyOf(replacement, replacement.length + replaced.length - 1);
+        System.arraycopy(replaced, 1, fields, replacement.length, replaced.length - 1);
+        log(file, () -> saveSessions(file), fields);
+    }
+
+    /**
+     * Records that a student, lecturer or admin was added.
+     *
+     * @param file the CSV file for that kind of user
+     * @param user the new user
+     */
+    public void journalUserAdded(String file, User user) {
+        if (user instanceof Student s) {
+            log(file, () -> saveStudents(file), "ADD", s.getId(), s.getName(), s.getEmail(), encode(s),
+                    s.getProgrammeID(), String.valueOf(s.getYear()), s.getGroupId());
+        } else if (user instanceof Lecturer l) {
+            log(file, () -> saveLecturers(file), "ADD", l.getLecturerId(), l.getName(), l.getEmail(),
+                    encode(l), l.getDepartment());
+        } else if (user instanceof Admin a) {
+            log(file, () -> saveAdmins(file), "ADD", a.getAdminId(), a.getName(), a.getEmail(), encode(a));
+        }
+    }
+
+    /** Gets the password column of a user's row: the encoded hash, never the password. */
+    private static String encode(User user) {
+        return (user.getCredential() == null) ? "" : user.getCredential().encode();
+    }
+
+    /**
+     * Records that users with an email were removed from the students, lecturers and admins files.
+     *
+     * @param studentsFile  the students CSV file
+     * @param lecturersFile the lecturers CSV file
+     * @param adminsFile    the admins CSV file
+     * @param email         the removed email
+     */
+    public void journalUsersRemoved(String studentsFile, String lecturersFile, String adminsFile, String email) {
+        log(studentsFile, () -> saveStudents(studentsFile), "REMOVE", email);
+        log(lecturersFile, () -> saveLecturers(lecturersFile), "REMOVE", email);
+        log(adminsFile, () -> saveAdmins(adminsFile), "REMOVE", email);
+    }
+
+    /**
+     * Writes every journalled CSV file in full and deletes its journal.
+     * Called on shutdown so the next start has less to replay.
+     */
+    public void compactJournals() {
+        for (Map.Entry<String, Runnable> e : compactors.entrySet()) {
+            if (ChangeJournal.journalFile(e.getKey()).isFile()) e.getValue().run();
+        }
+    }
+
+    /**
+     * Appends a change to a file's journal. A file whose contents do not yet
+     * match memory (e.g. the first edit after a start-up from a snapshot) is
+     * written in full instead, after which later changes are appended.
+     */
+    private void log(String file, Runnable save, String... fields) {
+        compactors.put(file, save);
+        if (!synced.contains(file)) {
+            save.run();
+            return;
+        }
+        try {
+            journals.computeIfAbsent(file, ChangeJournal::new).append(fields);
+        } catch (IOException e) {
+            System.err.println("Error writing journal for " + file + ", saving in full");
+            save.run();
         }
-        CSVWriter.writeCSV(file, rows);
     }
 
+    /** Called once a CSV file has been written in full: its journal is no longer needed. */
+    private void baseWritten(String file) {
+        try {
+            journals.computeIfAbsent(file, ChangeJournal::new).discard();
+            synced.add(file);
+        } catch (IOException e) {
+            System.err.println("Could not delete journal for " + file);
+        }
+    }
 }
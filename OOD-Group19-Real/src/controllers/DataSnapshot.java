@@ -0,0 +1,301 @@
+package controllers;
+
+import Model.Academic.Module;
+import Model.Academic.Programme;
+import Model.People.Admin;
+import Model.People.Credential;
+import Model.People.Lecturer;
+import Model.People.Student;
+import Model.People.User;
+import Model.Room.Room;
+import Model.Timetable.ScheduledSession;
+import Model.Timetable.Timeslot;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes a compact binary snapshot of everything a DataManager holds,
+ * so the system can start without parsing every CSV file again.
+ *
+ * Layout (all numbers are big-endian ints):
+ * <pre>
+ *   header      MAGIC, VERSION
+ *   strings     count, then (byte length, UTF-8 bytes) for each distinct string
+ *   rooms       count, then (id, type, capacity, building)
+ *   lecturers   count, then (id, name, email, credential, department)
+ *   students    count, then (id, name, email, credential, programme, year, group)
+ *   admins      count, then (id, name, email, credential)
+ *   modules     count, then (name, code, programme, year, semester, lec, lab, tut)
+ *   programmes  count, then (id, name)
+ *   sessions    count, then (module, lecturer, room, day, start, duration, group)
+ * </pre>
+ * String fields are indexes into the string table and session links are indexes
+ * into the module, lecturer and room sections, with -1 meaning null, so every
+ * record has a fixed width. A credential is the encoded salt and password hash
+ * of Credential.encode, never the password, so a restore does no hashing.
+ */
+public final class DataSnapshot {
+
+    /** "TTSN" */
+    private static final int MAGIC = 0x5454534E;
+    /** Bump when the layout changes; older snapshots are then ignored. */
+    static final int VERSION = 2;
+
+    private DataSnapshot() { }
+
+    /**
+     * Checks if a snapshot exists and is newer than all of its source files
+     * and any change journals kept next to them.
+     *
+     * @param snapshot the snapshot file
+     * @param sources  the CSV files it was built from
+     * @return true if the snapshot can be used instead of the CSV files
+     */
+    public static boolean isFresh(String snapshot, String... sources) {
+        File snap = new File(snapshot);
+        if (!snap.isFile()) return false;
+        for (String source : sources) {
+            File f = new File(source);
+            if (!f.isFile() || f.lastModified() >= snap.lastModified()) return false;
+
+            File journal = ChangeJournal.journalFile(source);
+            if (journal.isFile() && journal.lastModified() >= snap.lastModified()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes a snapshot of a DataManager. The file is written to a temporary
+     * file first and then moved into place.
+     *
+     * @param data the data to save
+     * @param file the snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    static void write(DataManager data, String file) throws IOException {
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        Map<Object, Integer> moduleRefs = positions(data.modules);
+        Map<Object, Integer> lecturerRefs = positions(data.lecturers);
+        Map<Object, Integer> roomRefs = positions(data.rooms);
+
+        Path target = Paths.get(file).toAbsolutePath();
+        Path tmp = CSVWriter.createTemp(target);
+        try {
+            // records first, into memory, so the string table is complete before it is written
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(body);
+
+            out.writeInt(data.rooms.size());
+            for (Room r : data.rooms) {
+                out.writeInt(ref(strings, table, r.getRoomId()));
+                out.writeInt(ref(strings, table, r.getType()));
+                out.writeInt(r.getCapacity());
+                out.writeInt(ref(strings, table, r.getBuilding()));
+            }
+
+            out.writeInt(data.lecturers.size());
+            for (Lecturer l : data.lecturers) {
+                writeUser(out, strings, table, l);
+                out.writeInt(ref(strings, table, l.getDepartment()));
+            }
+
+            out.writeInt(data.students.size());
+            for (Student s : data.students) {
+                writeUser(out, strings, table, s);
+                out.writeInt(ref(strings, table, s.getProgrammeID()));
+                out.writeInt(s.getYear());
+                out.writeInt(ref(strings, table, s.getGroupId()));
+            }
+
+            out.writeInt(data.admins.size());
+            for (Admin a : data.admins) {
+                writeUser(out, strings, table, a);
+            }
+
+            out.writeInt(data.modules.size());
+            for (Module m : data.modules) {
+                out.writeInt(ref(strings, table, m.getModuleName()));
+                out.writeInt(ref(strings, table, m.getModuleCode()));
+                out.writeInt(ref(strings, table, m.getProgrammeId()));
+                out.writeInt(m.getYear());
+                out.writeInt(m.getSemester());
+                out.writeInt(m.getLecHours());
+                out.writeInt(m.getLabHours());
+                out.writeInt(m.getTutHours());
+            }
+
+            out.writeInt(data.programmes.size());
+            for (Programme p : data.programmes) {
+                out.writeInt(ref(strings, table, p.getId()));
+                out.writeInt(ref(strings, table, p.getName()));
+            }
+
+            out.writeInt(data.sessions.size());
+            for (ScheduledSession s : data.sessions) {
+                Timeslot t = s.getTimeslot();
+                out.writeInt(moduleRefs.getOrDefault(s.getModule(), -1));
+                out.writeInt(lecturerRefs.getOrDefault(s.getLecturer(), -1));
+                out.writeInt(roomRefs.getOrDefault(s.getRoom(), -1));
+                out.writeInt(ref(strings, table, t == null ? null : t.getDay()));
+                out.writeInt(t == null ? 0 : t.getStartHour());
+                out.writeInt(t == null ? 0 : t.getDuration());
+                out.writeInt(ref(strings, table, s.getGroupId()));
+            }
+            out.flush();
+
+            try (DataOutputStream fileOut = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp.toFile()), 1 << 16))) {
+                fileOut.writeInt(MAGIC);
+                fileOut.writeInt(VERSION);
+                fileOut.writeInt(table.size());
+                for (String str : table) {
+                    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                    fileOut.writeInt(bytes.length);
+                    fileOut.write(bytes);
+                }
+                body.writeTo(fileOut);
+            }
+            CSVWriter.replace(tmp, target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Reads a snapshot into an empty DataManager. Nothing is added unless the
+     * whole file is read successfully.
+     *
+     * @param data the data manager to fill
+     * @param file the snapshot file
+     * @return false if the file is missing or from another version
+     * @throws IOException if the file cannot be read
+     */
+    static boolean read(DataManager data, String file) throws IOException {
+        if (!new File(file).isFile()) return false;
+
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(Paths.get(file)));
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) return false;
+
+        String[] table = new String[in.getInt()];
+        byte[] raw = in.array();
+        for (int i = 0; i < table.length; i++) {
+            int len = in.getInt();
+            table[i] = new String(raw, in.position(), len, StandardCharsets.UTF_8);
+            in.position(in.position() + len);
+        }
+
+        Room[] rooms = new Room[in.getInt()];
+        for (int i = 0; i < rooms.length; i++) {
+            rooms[i] = new Room(str(table, in), str(table, in), in.getInt(), str(table, in));
+        }
+
+        Lecturer[] lecturers = new Lecturer[in.getInt()];
+        for (int i = 0; i < lecturers.length; i++) {
+            lecturers[i] = new Lecturer(str(table, in), str(table, in), str(table, in), credential(table, in),
+                    str(table, in));
+        }
+
+        Student[] students = new Student[in.getInt()];
+        for (int i = 0; i < students.length; i++) {
+            students[i] = new Student(str(table, in), str(table, in), str(table, in), credential(table, in),
+                    str(table, in), in.getInt(), str(table, in));
+        }
+
+        Admin[] admins = new Admin[in.getInt()];
+        for (int i = 0; i < admins.length; i++) {
+            admins[i] = new Admin(str(table, in), str(table, in), str(table, in), credential(table, in));
+        }
+
+        Module[] modules = new Module[in.getInt()];
+        for (int i = 0; i < modules.length; i++) {
+            String name = str(table, in);
+            String code = str(table, in);
+            String programme = str(table, in);
+            modules[i] = new Module(name, code, programme, in.getInt(), in.getInt(),
+                    in.getInt(), in.getInt(), in.getInt());
+        }
+
+        Programme[] programmes = new Programme[in.getInt()];
+        for (int i = 0; i < programmes.length; i++) {
+            programmes[i] = new Programme(str(table, in), str(table, in));
+        }
+
+        ScheduledSession[] sessions = new ScheduledSession[in.getInt()];
+        for (int i = 0; i < sessions.length; i++) {
+            Module m = at(modules, in.getInt());
+            Lecturer l = at(lecturers, in.getInt());
+            Room r = at(rooms, in.getInt());
+            String day = str(table, in);
+            int start = in.getInt();
+            int duration = in.getInt();
+            Timeslot t = (day == null) ? null : new Timeslot(day, start, duration);
+            sessions[i] = new ScheduledSession(m, l, r, t, str(table, in));
+        }
+
+        for (Room r : rooms) data.addRoom(r);
+        for (Module m : modules) data.addModule(m);
+        for (Programme p : programmes) data.programmes.add(p);
+        for (Lecturer l : lecturers) data.addRestoredUser(l);
+        for (Student s : students) data.addRestoredUser(s);
+        for (Admin a : admins) data.addRestoredUser(a);
+        data.replaceSessions(Arrays.asList(sessions));
+        return true;
+    }
+
+    private static void writeUser(DataOutputStream out, Map<String, Integer> strings, List<String> table, User u)
+            throws IOException {
+        out.writeInt(ref(strings, table, u.getId()));
+        out.writeInt(ref(strings, table, u.getName()));
+        out.writeInt(ref(strings, table, u.getEmail()));
+        out.writeInt(ref(strings, table, u.getCredential() == null ? null : u.getCredential().encode()));
+    }
+
+    private static Credential credential(String[] table, ByteBuffer in) {
+        String encoded = str(table, in);
+        return (encoded == null) ? null : Credential.decode(encoded);
+    }
+
+    /** Adds a string to the table if it is new and returns its index, or -1 for null. */
+    private static int ref(Map<String, Integer> strings, List<String> table, String s) {
+        if (s == null) return -1;
+        Integer idx = strings.get(s);
+        if (idx == null) {
+            idx = table.size();
+            strings.put(s, idx);
+            table.add(s);
+        }
+        return idx;
+    }
+
+    private static String str(String[] table, ByteBuffer in) {
+        int idx = in.getInt();
+        return idx < 0 ? null : table[idx];
+    }
+
+    private static <T> T at(T[] items, int idx) {
+        return idx < 0 ? null : items[idx];
+    }
+
+    private static Map<Object, Integer> positions(List<?> list) {
+        Map<Object, Integer> refs = new IdentityHashMap<>();
+        for (int i = 0; i < list.size(); i++) refs.putIfAbsent(list.get(i), i);
+        return refs;
+    }
+}
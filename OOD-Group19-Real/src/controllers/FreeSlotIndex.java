@@ -0,0 +1,71 @@
+package controllers;
+
+import Model.Timetable.OccupancyIndex;
+import Model.Timetable.RoomIndex;
+import Model.Timetable.ScheduledSession;
+
+/**
+ * The week bitmaps of the current timetable that TimetableController reads to
+ * suggest free times: the booked hours of every room, lecturer, group and
+ * cohort, and the free rooms of each size.
+ *
+ * They are built from the DataManager's sessions on first use and kept with
+ * the sessions list's change count. A session the controller has just added is
+ * booked straight in; any other change to the timetable means they are built
+ * again on the next use, since a bitmap cannot tell which session set a bit.
+ */
+class FreeSlotIndex {
+
+    private final DataManager data;
+    private OccupancyIndex occupancy;
+    private RoomIndex rooms;
+    /** Change count of the sessions list the bitmaps match. */
+    private long version;
+
+    /**
+     * @param data the data manager holding the sessions and rooms
+     */
+    FreeSlotIndex(DataManager data) {
+        this.data = data;
+    }
+
+    /** @return the booked hours of the current sessions, which must not be modified */
+    synchronized OccupancyIndex getOccupancy() {
+        ensureBuilt();
+        return occupancy;
+    }
+
+    /** @return the free rooms of the current sessions, which must not be modified */
+    synchronized RoomIndex getRooms() {
+        ensureBuilt();
+        return rooms;
+    }
+
+    /**
+     * Books a session that was just appended to the sessions list.
+     *
+     * @param s the new session
+     */
+    synchronized void added(ScheduledSession s) {
+        if (occupancy == null) return;
+        if (version != data.getSessionsVersion() - 1) {
+            occupancy = null;
+            rooms = null;
+            return;
+        }
+        occupancy.add(s);
+        rooms.book(s);
+        version++;
+    }
+
+    private void ensureBuilt() {
+        if (occupancy != null && version == data.getSessionsVersion()) return;
+
+        occupancy = new OccupancyIndex();
+        for (ScheduledSession s : data.sessions) {
+            occupancy.add(s);
+        }
+        rooms = new RoomIndex(data.rooms, data.sessions);
+        version = data.getSessionsVersion();
+    }
+}
@@ -0,0 +1,146 @@
+package controllers;
+
+import Model.Academic.Module;
+import Model.People.Lecturer;
+import Model.Room.Room;
+import Model.Timetable.TimetableService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the TimetableGenerator several times with different seeds on a fork-join
+ * pool and keeps the best timetable: the one with the fewest unplaced hours,
+ * then the fewest idle hours between classes.
+ *
+ * Each run has its own generator, Random and occupancy index, and reads one
+ * shared read-only copy of the modules, rooms and lecturers taken before the
+ * runs start. The DataManager and the timetable service are only touched once,
+ * when the winner is committed. The run seeds come from a single base seed and
+ * ties go to the earliest run, so the same base seed always picks the same
+ * timetable however the runs are scheduled, and the winner's own seed
+ * reproduces it with a single TimetableGenerator.
+ */
+public class MultiStartGenerator {
+
+    private final DataManager data;
+    private final TimetableService service;
+    private final ForkJoinPool pool;
+    private final TimetableGenerator.Engine engine;
+
+    /**
+     * Creates a multi-start generator using the common fork-join pool.
+     *
+     * @param data    the data storage for modules, lecturers, rooms etc
+     * @param service the timetable service the winner is loaded into
+     */
+    public MultiStartGenerator(DataManager data, TimetableService service) {
+        this(data, service, ForkJoinPool.commonPool(), TimetableGenerator.Engine.GREEDY);
+    }
+
+    /**
+     * Creates a multi-start generator using the common fork-join pool and a given engine.
+     *
+     * @param data    the data storage for modules, lecturers, rooms etc
+     * @param service the timetable service the winner is loaded into
+     * @param engine  how each run places sessions
+     */
+    public MultiStartGenerator(DataManager data, TimetableService service, TimetableGenerator.Engine engine) {
+        this(data, service, ForkJoinPool.commonPool(), engine);
+    }
+
+    /**
+     * Creates a multi-start generator with a given pool and engine.
+     *
+     * @param data    the data storage for modules, lecturers, rooms etc
+     * @param service the timetable service the winner is loaded into
+     * @param pool    the pool the runs are executed on
+     * @param engine  how each run places sessions
+     */
+    public MultiStartGenerator(DataManager data, TimetableService service, ForkJoinPool pool,
+                               TimetableGenerator.Engine engine) {
+        this.data = data;
+        this.service = service;
+        this.pool = pool;
+        this.engine = engine;
+    }
+
+    /**
+     * Works out the seed of each run from the base seed.
+     *
+     * @param baseSeed the seed for the whole multi-start
+     * @param runs     the number of runs
+     * @return one seed per run
+     */
+    public static long[] runSeeds(long baseSeed, int runs) {
+        SplittableRandom seeds = new SplittableRandom(baseSeed);
+        long[] result = new long[runs];
+        for (int i = 0; i < runs; i++) result[i] = seeds.nextLong();
+        return result;
+    }
+
+    /**
+     * Generates a number of timetables and returns the best one without committing it.
+     *
+     * @param runs     the number of independently seeded runs, at least 1
+     * @param baseSeed the seed the run seeds are made from
+     * @return the best timetable
+     */
+    public TimetableGenerator.Result generateBest(int runs, long baseSeed) {
+        if (runs < 1) throw new IllegalArgumentException("runs must be at least 1");
+
+        List<Module> modules = List.copyOf(data.modules);
+        List<Room> rooms = List.copyOf(data.rooms);
+        List<Lecturer> lecturers = List.copyOf(data.lecturers);
+
+        List<Callable<TimetableGenerator.Result>> tasks = new ArrayList<>();
+        for (long seed : runSeeds(baseSeed, runs)) {
+            tasks.add(() -> new TimetableGenerator(data, service, seed, engine).generate(modules, rooms, lecturers));
+        }
+
+        TimetableGenerator.Result best = null;
+        try {
+            for (Future<TimetableGenerator.Result> run : pool.invokeAll(tasks)) {
+                TimetableGenerator.Result result = run.get();
+                if (best == null || result.isBetterThan(best)) best = result;
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Timetable generation failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Timetable generation was interrupted", e);
+        }
+        return best;
+    }
+
+    /**
+     * Generates a number of timetables, commits the best one and writes it to a CSV file.
+     *
+     * @param outputCsvPath the file to write the winning sessions to
+     * @param runs          the number of independently seeded runs, at least 1
+     * @param baseSeed      the seed the run seeds are made from
+     * @return the timetable that was committed
+     */
+    public TimetableGenerator.Result generateAndLog(String outputCsvPath, int runs, long baseSeed) {
+        TimetableGenerator.Result best = generateBest(runs, baseSeed);
+        System.out.println("Best of " + runs + " " + engine + " runs (base seed " + baseSeed + "): " + best);
+        commit(best, outputCsvPath);
+        return best;
+    }
+
+    /**
+     * Makes a timetable the current one, e.g. the winner after TimetableOptimizer
+     * has improved it, and writes it to a CSV file.
+     *
+     * @param timetable     the timetable to use
+     * @param outputCsvPath the file to write the sessions to
+     */
+    public void commit(TimetableGenerator.Result timetable, String outputCsvPath) {
+        new TimetableGenerator(data, service, timetable.getSeed(), engine).commit(timetable, outputCsvPath);
+    }
+}
@@ -0,0 +1,134 @@
+package controllers;
+
+import Model.Timetable.ScheduledSession;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Loads a large sessions CSV file on several threads.
+ *
+ * The file is memory-mapped and cut into chunks that each end on a line break.
+ * Every chunk is parsed and its module, room and lecturer links resolved as a
+ * separate task on a fork-join pool, and the chunk results are joined back
+ * together in file order.
+ *
+ * Chunks are cut at any line break, so this loader expects one session per line,
+ * which is how DataManager writes sessions files.
+ *
+ * The result is all or nothing: if any chunk fails, no sessions are returned.
+ * A bad row throws the same exception it would throw in DataManager.loadSessions,
+ * and a file that cannot be read gives an empty list.
+ */
+public class ParallelSessionLoader {
+
+    /** Default chunk size of 4 MB. */
+    public static final int DEFAULT_CHUNK_BYTES = 4 << 20;
+
+    private final DataManager data;
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+
+    /**
+     * Creates a loader using the common fork-join pool and the default chunk size.
+     *
+     * @param data the data manager used to resolve modules, rooms and lecturers
+     */
+    public ParallelSessionLoader(DataManager data) {
+        this(data, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Creates a loader with a given pool and chunk size.
+     *
+     * @param data       the data manager used to resolve modules, rooms and lecturers
+     * @param pool       the pool the chunks are parsed on
+     * @param chunkBytes the target size of each chunk in bytes
+     */
+    public ParallelSessionLoader(DataManager data, ForkJoinPool pool, int chunkBytes) {
+        if (chunkBytes < 1) throw new IllegalArgumentException("chunkBytes must be positive");
+        this.data = data;
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Loads every session in the file.
+     *
+     * @param file the path to the sessions CSV file
+     * @return the sessions in file order, or an empty list if the file cannot be read
+     * @throws RuntimeException the first exception thrown while building a session from a row
+     */
+    public List<ScheduledSession> load(String file) {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            List<Callable<List<ScheduledSession>>> tasks = new ArrayList<>();
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long end = nextLineStart(channel, Math.min(start + chunkBytes, size), size);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                tasks.add(() -> parseChunk(chunk));
+                start = end;
+            }
+
+            List<ScheduledSession> loaded = new ArrayList<>();
+            for (Future<List<ScheduledSession>> result : pool.invokeAll(tasks)) {
+                loaded.addAll(result.get());
+            }
+            return loaded;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            // only an IOException is left, so the file could not be read
+            System.err.println("Error reading CSV file: " + file);
+            cause.printStackTrace();
+        } catch (IOException e) {
+            System.err.println("Error reading CSV file: " + file);
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new ArrayList<>();
+    }
+
+    private List<ScheduledSession> parseChunk(ByteBuffer chunk) throws IOException {
+        List<ScheduledSession> sessions = new ArrayList<>();
+        CharBuffer chars = StandardCharsets.UTF_8.decode(chunk);
+
+        CSVReader.parse(new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()),
+                row -> {
+                    if (row.equalsIgnoreCase(0, "sessionId")) return;
+                    sessions.add(data.sessionFromRow(row));
+                });
+        return sessions;
+    }
+
+    /** Finds the first byte after the next '\n' at or after pos, or the end of the file. */
+    private static long nextLineStart(FileChannel channel, long pos, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        while (pos < size) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,111 @@
+package controllers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Runs the start-up work of the system as named stages and records how long
+ * each one took.
+ *
+ * Loading stages are started in the background with load() and only waited for
+ * with await() by the stage that needs them, so independent CSV files are read
+ * at the same time. Stages that must run in order are run with run().
+ */
+public class StartupPipeline {
+
+    private final Map<String, CompletableFuture<Void>> pending = new LinkedHashMap<>();
+    private final Map<String, Long> timings = new LinkedHashMap<>();
+    private final long started = System.nanoTime();
+
+    /**
+     * Starts a stage in the background.
+     *
+     * @param name the stage name, used by await() and in the report
+     * @param task the work to do
+     */
+    public void load(String name, Runnable task) {
+        synchronized (timings) {
+            timings.put(name, -1L);
+        }
+        pending.put(name, CompletableFuture.runAsync(() -> timed(name, task)));
+    }
+
+    /**
+     * Waits for background stages to finish. Errors thrown by a stage are rethrown here.
+     * Stages that were never started, e.g. because the data came from a snapshot, are skipped.
+     *
+     * @param names the stages to wait for
+     */
+    public void await(String... names) {
+        for (String name : names) {
+            CompletableFuture<Void> stage = pending.get(name);
+            if (stage != null) stage.join();
+        }
+    }
+
+    /** Waits for every background stage to finish. */
+    public void awaitAll() {
+        await(pending.keySet().toArray(new String[0]));
+    }
+
+    /**
+     * Runs a stage on the current thread.
+     *
+     * @param name the stage name for the report
+     * @param task the work to do
+     */
+    public void run(String name, Runnable task) {
+        timed(name, task);
+    }
+
+    /**
+     * Runs a stage that produces a result on the current thread.
+     *
+     * @param name the stage name for the report
+     * @param task the work to do
+     * @return the result of the task
+     */
+    public <T> T call(String name, Supplier<T> task) {
+        List<T> result = new ArrayList<>(1);
+        timed(name, () -> result.add(task.get()));
+        return result.get(0);
+    }
+
+    /**
+     * Gets the wall-clock time of every finished stage in milliseconds, in the order they were added.
+     *
+     * @return stage name to milliseconds
+     */
+    public Map<String, Long> getTimings() {
+        synchronized (timings) {
+            Map<String, Long> done = new LinkedHashMap<>();
+            for (Map.Entry<String, Long> e : timings.entrySet()) {
+                if (e.getValue() >= 0) done.put(e.getKey(), e.getValue());
+            }
+            return done;
+        }
+    }
+
+    /** @return a readable report of each stage's time and the total start-up time */
+    public String report() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Long> e : getTimings().entrySet()) {
+            lines.add(String.format("  %-14s %6d ms", e.getKey(), e.getValue()));
+        }
+        long total = (System.nanoTime() - started) / 1_000_000;
+        return "Startup timings:\n" + String.join("\n", lines) + String.format("%n  %-14s %6d ms", "total", total);
+    }
+
+    private void timed(String name, Runnable task) {
+        long t0 = System.nanoTime();
+        task.run();
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        synchronized (timings) {
+            timings.put(name, ms);
+        }
+    }
+}
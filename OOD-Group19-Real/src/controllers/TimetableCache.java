@@ -0,0 +1,174 @@
+package controllers;
+
+import Model.Academic.Module;
+import Model.People.Lecturer;
+import Model.Room.Room;
+import Model.Timetable.ScheduledSession;
+import Model.Timetable.TimetableService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Lets start-up reuse the last generated timetable while nothing it was
+ * generated from has changed.
+ *
+ * The fingerprint is a SHA-256 hash of everything the generator reads: every
+ * module's code, programme, year, semester and hours, every room's ID, type and
+ * capacity, and every lecturer's ID, all in list order since the generator
+ * depends on it, plus a settings string such as the engine and run count. It
+ * is taken from the loaded data rather than the files, so it is the same after
+ * a snapshot restore, and edits replayed from a change journal count.
+ *
+ * The fingerprint is saved in a small text file next to the timetable. The old
+ * fingerprint is deleted before a new timetable is written and the new one is
+ * saved after it, so a timetable is only reused when the fingerprint written
+ * after it matches; a crash in between leaves no fingerprint, not a stale one.
+ */
+public final class TimetableCache {
+
+    /** Bump when the fingerprinted fields change, so older fingerprints never match. */
+    private static final String VERSION = "1";
+
+    private TimetableCache() { }
+
+    /**
+     * Computes the fingerprint of the generator inputs in a DataManager.
+     *
+     * @param data     the data the generator would run on
+     * @param settings anything else that changes the result, e.g. the engine and seed
+     * @return the fingerprint as 64 hex digits
+     */
+    public static String fingerprint(DataManager data, String settings) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // every JVM has it
+        }
+
+        StringBuilder text = new StringBuilder();
+        add(text, VERSION, settings);
+        text.append("modules ").append(data.modules.size()).append('\n');
+        for (Module m : data.modules) {
+            add(text, m.getModuleCode(), m.getProgrammeId(), String.valueOf(m.getYear()),
+                    String.valueOf(m.getSemester()), String.valueOf(m.getLecHours()),
+                    String.valueOf(m.getLabHours()), String.valueOf(m.getTutHours()));
+            flush(text, digest);
+        }
+        text.append("rooms ").append(data.rooms.size()).append('\n');
+        for (Room r : data.rooms) {
+            add(text, r.getRoomId(), r.getType(), String.valueOf(r.getCapacity()));
+            flush(text, digest);
+        }
+        text.append("lecturers ").append(data.lecturers.size()).append('\n');
+        for (Lecturer l : data.lecturers) {
+            add(text, l.getLecturerId());
+            flush(text, digest);
+        }
+        text.append("end\n");
+        digest.update(text.toString().getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Checks if a timetable file exists and was saved with the given fingerprint.
+     *
+     * @param timetableCsv    the generated timetable
+     * @param fingerprintFile the file its fingerprint was saved to
+     * @param fingerprint     the fingerprint of the current inputs
+     * @return true if the timetable can be loaded instead of generated
+     */
+    public static boolean matches(String timetableCsv, String fingerprintFile, String fingerprint) {
+        if (!Files.isRegularFile(Paths.get(timetableCsv))) return false;
+        try {
+            String saved = new String(Files.readAllBytes(Paths.get(fingerprintFile)), StandardCharsets.UTF_8);
+            return saved.trim().equals(fingerprint);
+        } catch (IOException e) {
+            return false; // no fingerprint yet
+        }
+    }
+
+    /**
+     * Loads a cached timetable and makes it the current one, the same way
+     * TimetableGenerator.commit does for a generated one.
+     *
+     * @param data         the data manager to fill
+     * @param service      the timetable service to load
+     * @param timetableCsv the generated timetable
+     * @return false if the file held no sessions, so the timetable should be generated instead
+     */
+    public static boolean load(DataManager data, TimetableService service, String timetableCsv) {
+        List<ScheduledSession> sessions = data.loadSessions(timetableCsv);
+        if (sessions.isEmpty() && !data.modules.isEmpty()) return false;
+
+        service.loadSessions(sessions);
+        data.replaceSessions(sessions);
+        System.out.println("Loaded " + sessions.size() + " sessions from " + timetableCsv
+                + " (generator inputs unchanged)");
+        return true;
+    }
+
+    /**
+     * Deletes a saved fingerprint. Call it before the timetable file is
+     * rewritten, so the old fingerprint never sits next to a different timetable.
+     *
+     * @param fingerprintFile the file to delete
+     */
+    public static void invalidate(String fingerprintFile) {
+        try {
+            Files.deleteIfExists(Paths.get(fingerprintFile));
+        } catch (IOException e) {
+            System.err.println("Error deleting timetable fingerprint: " + fingerprintFile);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Saves the fingerprint of the inputs a timetable was generated from.
+     * Call it after the timetable file itself has been written.
+     *
+     * @param fingerprintFile the file to write
+     * @param fingerprint     the fingerprint of the inputs
+     */
+    public static void save(String fingerprintFile, String fingerprint) {
+        try {
+            Path target = Paths.get(fingerprintFile).toAbsolutePath();
+            Path tmp = CSVWriter.createTemp(target);
+            try {
+                Files.write(tmp, (fingerprint + "\n").getBytes(StandardCharsets.UTF_8));
+                CSVWriter.replace(tmp, target);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing timetable fingerprint: " + fingerprintFile);
+            e.printStackTrace();
+        }
+    }
+
+    /** Adds fields separated by a character that cannot appear in a CSV value we load. */
+    private static void add(StringBuilder text, String... fields) {
+        for (String field : fields) {
+            text.append(field == null ? "\u0001" : field).append('\u0000');
+        }
+        text.append('\n');
+    }
+
+    private static void flush(StringBuilder text, MessageDigest digest) {
+        if (text.length() < 8192) return;
+        digest.update(text.toString().getBytes(StandardCharsets.UTF_8));
+        text.setLength(0);
+    }
+}
@@ -1,17 +1,18 @@
 package controllers;
 
-import Model.People.Admin;
 import Model.People.Lecturer;
 import Model.People.Student;
+import Model.Timetable.OccupancyIndex;
+import Model.Timetable.RoomIndex;
 import Model.Timetable.ScheduledSession;
 import Model.Timetable.TimetableService;
 import Model.Room.Room;
 import Model.Academic.Module;
 import Model.Timetable.Timeslot;
 
-import java.util.Comparator;
-import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * The TimetableController acts as the main controller for user actions.
@@ -19,8 +20,13 @@ import java.util.ArrayList;
  */
 public class TimetableController {
 
+    /** How many alternatives a failed admin booking prints. */
+    public static final int SUGGESTIONS = 5;
+
     private final TimetableService service;
     private final DataManager datamanager;
+    /** Booked hours and free rooms for suggestAlternatives. */
+    private final FreeSlotIndex freeSlots;
 
     /**
      * Creates a TimetableController with a timetable service and a data manager.
@@ -31,76 +37,40 @@ public class TimetableController {
     public TimetableController(TimetableService service, DataManager datamanager) {
         this.service = service;
         this.datamanager = datamanager;
+        this.freeSlots = new FreeSlotIndex(datamanager);
     }
 
     /**
      * Attempts to log a user in by checking their email and password
      * against the stored student, lecturer and admin accounts.
+     * Emails are matched ignoring case and surrounding spaces.
      *
      * @param email     the email entered
      * @param password  the password entered
      * @return the matching user object, or null if the login fails
      */
     public Object login(String email, String password) {
-        for (Student s : datamanager.students) {
-            if (s.getEmail().equals(email) && s.getPassword().equals(password)) {
-                return s;
-            }
-        }
-
-        for (Lecturer l : datamanager.lecturers) {
-            if (l.getEmail().equals(email) && l.getPassword().equals(password)) {
-                return l;
-            }
-        }
-
-        for (Admin a : datamanager.admins) {
-            if (a.getEmail().equals(email) && a.getPassword().equals(password)) {
-                return a;
-            }
-        }
-        return null;
+        return datamanager.getAccounts().authenticate(email, password);
     }
 
     /**
      * Gets the timetable for a specific student for a given semester.
-     * Timetable entries are filtered by year, semester and group.
+     * Timetable entries are those of the student's programme, year and group,
+     * sorted by day and start hour.
      *
      * @param s              the student requesting the timetable
      * @param targetSemester the semester to search
      * @return a formatted timetable string or a 'not found' message
      */
     public String getTimetableForStudent(Student s, int targetSemester) {
-        StringBuilder sb = new StringBuilder();
-
-        int studentYear = s.getYear();
-        String studentGroup = s.getGroupId();
-
-        List<ScheduledSession> matches = new ArrayList<>();
-
-        for (ScheduledSession session : datamanager.sessions) {
-            Module m = session.getModule();
-            if (m == null) continue;
-
-            boolean sameYear = (m.getYear() == studentYear);
-            boolean sameSemester = (m.getSemester() == targetSemester);
-            boolean groupMatches =
-                    session.getGroupId().equalsIgnoreCase("ALL") ||
-                            session.getGroupId().equalsIgnoreCase(studentGroup);
-
-            if (sameYear && sameSemester && groupMatches) {
-                matches.add(session);
-            }
-        }
+        List<ScheduledSession> matches = datamanager.getCohortTimetables()
+                .get(s.getProgrammeID(), s.getYear(), targetSemester, s.getGroupId());
 
         if (matches.isEmpty()) {
             return "No sessions found.";
         }
 
-        matches.sort(Comparator
-                .comparingInt((ScheduledSession sess) -> dayOrder(sess.getTimeslot().getDay()))
-                .thenComparingInt(sess -> sess.getTimeslot().getStartHour()));
-
+        StringBuilder sb = new StringBuilder();
         for (ScheduledSession sess : matches) {
             sb.append(sess).append("\n");
         }
@@ -116,8 +86,8 @@ public class TimetableController {
     public String getTimetableForLecturer(Lecturer l) {
         StringBuilder sb = new StringBuilder();
 
-        for (ScheduledSession session : datamanager.sessions) {
-            if (session.getLecturer().equals(l)) {
+        for (ScheduledSession session : service.getSessionsForLecturerId(l.getLecturerId())) {
+            if (session.getLecturer() == l) {
                 sb.append(session).append("\n");
             }
         }
@@ -151,7 +121,9 @@ public class TimetableController {
                 return false;
             }
         }
-        datamanager.sessions.add(newSession);
+        datamanager.addSession(newSession);
+        freeSlots.added(newSession);
+        service.restoreSession(newSession); // already checked against every session above
         System.out.println("Session added: " + newSession);
         return true;
     }
@@ -162,30 +134,21 @@ public class TimetableController {
      * @return a list of room conflict descriptions
      */
     public List<String> findRoomConflicts() {
-        List<String> conflicts = new ArrayList<>();
-        List<ScheduledSession> sessions = datamanager.sessions;
-
-        for (int i = 0; i < sessions.size(); i++) {
-            for (int j = i + 1; j < sessions.size(); j++) {
-                ScheduledSession a = sessions.get(i);
-                ScheduledSession b = sessions.get(j);
-
-                if (a.getRoom() == null || b.getRoom() == null) continue;
-
-                boolean sameRoom = a.getRoom().getRoomId()
-                        .equalsIgnoreCase(b.getRoom().getRoomId());
-                boolean overlap = a.getTimeslot().overlaps(b.getTimeslot());
+        return auditConflicts().getRoomConflicts();
+    }
 
-                if (sameRoom && overlap) {
-                    conflicts.add("ROOM CONFLICT: " + a + " <--> " + b);
-                }
-            }
-        }
-        return conflicts;
+    /**
+     * Checks the whole timetable for room, lecturer and cohort clashes in a single pass.
+     *
+     * @return the audit holding each kind of conflict
+     */
+    public ConflictAudit auditConflicts() {
+        return new ConflictAudit(datamanager.sessions);
     }
 
     /**
-     * Returns the timetable for a programme year and semester.
+     * Returns the timetable for a programme year and semester,
+     * sorted by day and start hour.
      *
      * @param programmeId the programme ID or "ALL"
      * @param year        the academic year
@@ -193,22 +156,7 @@ public class TimetableController {
      * @return the matching sessions 
      */
     public String getTimetableForCourseYear(String programmeId, int year, int semester) {
-        StringBuilder sb = new StringBuilder();
-
-        for (ScheduledSession session : datamanager.sessions) {
-            Module m = session.getModule();
-            if (m == null) continue;
-
-            boolean sameProgramme = programmeId.equalsIgnoreCase("ALL")
-                    || m.getProgrammeId().equalsIgnoreCase(programmeId);
-            boolean sameYear = m.getYear() == year;
-            boolean sameSemester = m.getSemester() == semester;
-
-            if (sameProgramme && sameYear && sameSemester) {
-                sb.append(session).append("\n");
-            }
-        }
-        return sb.length() == 0 ? "No sessions found." : sb.toString();
+        return format(datamanager.getCohortTimetables().getCourse(programmeId, year, semester));
     }
 
     /**
@@ -218,16 +166,9 @@ public class TimetableController {
      * @return the timetable for the module
      */
     public String getTimetableForModule(String moduleCode) {
-        StringBuilder sb = new StringBuilder();
-
-        for (ScheduledSession session : datamanager.sessions) {
-            Module m = session.getModule();
-            if (m != null && m.getModuleCode().equalsIgnoreCase(moduleCode)) {
-                sb.append(session).append("\n");
-            }
-        }
-        return sb.length() == 0 ?
-                "No sessions found for module " + moduleCode : sb.toString();
+        List<ScheduledSession> found = service.getSessionsForModule(moduleCode);
+        return found.isEmpty() ?
+                "No sessions found for module " + moduleCode : format(found);
     }
 
     /**
@@ -237,49 +178,21 @@ public class TimetableController {
      * @return the timetable for the room
      */
     public String getTimetableForRoom(String roomId) {
-        StringBuilder sb = new StringBuilder();
-
-        for (ScheduledSession session : datamanager.sessions) {
-            Room room = session.getRoom();
-            if (room != null && room.getRoomId().equalsIgnoreCase(roomId)) {
-                sb.append(session).append("\n");
-            }
-        }
-        return sb.length() == 0 ?
-                "No sessions found for room " + roomId : sb.toString();
+        List<ScheduledSession> found = service.getSessionsForRoom(roomId);
+        return found.isEmpty() ?
+                "No sessions found for room " + roomId : format(found);
     }
 
-        public String getModuleSchedule(String moduleCode) {
-        StringBuilder sb = new StringBuilder();
-        for (ScheduledSession s : datamanager.sessions) {
-            Module m = s.getModule();
-            if (m != null && m.getModuleCode().equalsIgnoreCase(moduleCode)) {
-                sb.append(s).append("\n");
-            }
-        }
-        return sb.length() == 0 ? "No sessions found." : sb.toString();
+    public String getModuleSchedule(String moduleCode) {
+        return format(service.getSessionsForModule(moduleCode));
     }
 
     public String getRoomSchedule(String roomId) {
-        StringBuilder sb = new StringBuilder();
-        for (ScheduledSession s : datamanager.sessions) {
-            if (s.getRoom() != null && s.getRoom().getRoomId().equalsIgnoreCase(roomId)) {
-                sb.append(s).append("\n");
-            }
-        }
-        return sb.length() == 0 ? "No sessions found." : sb.toString();
+        return format(service.getSessionsForRoom(roomId));
     }
 
     public String getProgrammeSchedule(String programmeId, Integer semester) {
-        StringBuilder sb = new StringBuilder();
-        for (ScheduledSession s : datamanager.sessions) {
-            Module m = s.getModule();
-            if (m == null) continue;
-            if (!m.getProgrammeId().equalsIgnoreCase(programmeId)) continue;
-            if (semester != null && m.getSemester() != semester) continue;
-            sb.append(s).append("\n");
-        }
-        return sb.length() == 0 ? "No sessions found." : sb.toString();
+        return format(datamanager.getCohortTimetables().getCourse(programmeId, null, semester));
     }
 
     /** Returns all sessions with an index so admins can pick them. */
@@ -295,8 +208,8 @@ public class TimetableController {
     /** Admin helper to remove a session by index. */
     public boolean removeSessionByIndex(int idx) {
         if (idx < 0 || idx >= datamanager.sessions.size()) return false;
-        ScheduledSession target = datamanager.sessions.remove(idx);
-        service.getAllSessions().remove(target);
+        ScheduledSession target = datamanager.removeSession(idx);
+        service.removeSession(target);
         return true;
     }
 
@@ -306,14 +219,14 @@ public class TimetableController {
         if (idx < 0 || idx >= datamanager.sessions.size()) return false;
 
         ScheduledSession old = datamanager.sessions.get(idx);
-        service.getAllSessions().remove(old);
-        datamanager.sessions.remove(idx);
+        service.removeSession(old);
+        datamanager.removeSession(idx);
 
         boolean added = addSessionAdmin(moduleCode, day, startHour, endHour, roomId, lecturerId, groupId);
         if (!added) {
             // rollback
-            datamanager.sessions.add(idx, old);
-            service.getAllSessions().add(old);
+            datamanager.restoreSession(idx, old);
+            service.restoreSession(old);
         }
         return added;
     }
@@ -353,12 +266,13 @@ public class TimetableController {
 
     
         int neededCap = (groupId == null || groupId.equalsIgnoreCase("ALL")) ? 60 : 30;
+        Timeslot slot = new Timeslot(day.toUpperCase(), startHour, duration);
         if (room.getCapacity() < neededCap) {
             System.out.println("Room too small for group");
+            printAlternatives(module, lecturer, room, slot, groupId);
             return false;
         }
 
-        Timeslot slot = new Timeslot(day.toUpperCase(), startHour, duration);
         ScheduledSession newSession = new ScheduledSession(module, lecturer, room, slot, groupId);
 
         List<String> conflicts = service.addSession(newSession);
@@ -367,24 +281,96 @@ public class TimetableController {
             for (String conflict : conflicts) {
                 System.out.println(" - " + conflict);
             }
+            printAlternatives(module, lecturer, room, slot, groupId);
             return false;
         }
 
-        datamanager.sessions.add(newSession);
+        datamanager.addSession(newSession);
+        freeSlots.added(newSession);
         System.out.println("Session added: " + newSession);
         return true;
     }
 
-    /** Converts day names into numbers. */
-    private int dayOrder(String day) {
-        if (day == null) return 99;
-        return switch (day.toUpperCase()) {
-            case "MON" -> 1;
-            case "TUE" -> 2;
-            case "WED" -> 3;
-            case "THU" -> 4;
-            case "FRI" -> 5;
-            default -> 99;
-        };
+    /**
+     * Finds the free times nearest to a requested one for the same module,
+     * lecturer and group. Each suggestion is in the requested room if it is
+     * free and big enough, otherwise in the smallest free room of the same type
+     * that is. A time is free when the lecturer, group and cohort have nothing
+     * then, by the same rules as the generator.
+     *
+     * Suggestions are ranked by how far their start is from the requested one,
+     * where a day counts as a whole teaching day of hours, so every free hour on
+     * the requested day comes before the next day. The answer comes from the
+     * week bitmaps kept by this controller, so it is a few mask tests per hour
+     * once they are built.
+     *
+     * @param module    the module of the session
+     * @param lecturer  the lecturer of the session
+     * @param room      the room asked for
+     * @param requested the time asked for
+     * @param groupId   the student group
+     * @param k         the most suggestions to return
+     * @return up to k sessions, nearest first, or an empty list if the requested day is not a teaching day
+     */
+    public List<ScheduledSession> suggestAlternatives(Module module, Lecturer lecturer, Room room,
+                                                      Timeslot requested, String groupId, int k) {
+        List<ScheduledSession> suggestions = new ArrayList<>();
+        int day = OccupancyIndex.dayIndex(requested.getDay());
+        int duration = requested.getDuration();
+        int lastStart = OccupancyIndex.FIRST_HOUR + OccupancyIndex.HOURS_PER_DAY - duration;
+        if (day < 0 || duration <= 0 || k <= 0) return suggestions;
+
+        OccupancyIndex occupancy = freeSlots.getOccupancy();
+        long busy = occupancy.busyMask(module, lecturer, groupId);
+        int neededCap = (groupId == null || groupId.equalsIgnoreCase("ALL")) ? 60 : 30;
+        boolean roomFits = room.getCapacity() >= neededCap;
+
+        // every start time as distance << 16 | day << 8 | hour, so sorting ranks them
+        long[] starts = new long[OccupancyIndex.DAYS.length * OccupancyIndex.HOURS_PER_DAY];
+        int count = 0;
+        for (int d = 0; d < OccupancyIndex.DAYS.length; d++) {
+            for (int h = OccupancyIndex.FIRST_HOUR; h <= lastStart; h++) {
+                if ((busy & OccupancyIndex.mask(d, h, duration)) != 0L) continue;
+                int distance = Math.abs(d - day) * OccupancyIndex.HOURS_PER_DAY + Math.abs(h - requested.getStartHour());
+                starts[count++] = ((long) distance << 16) | (d << 8) | h;
+            }
+        }
+        Arrays.sort(starts, 0, count);
+
+        RoomIndex rooms = freeSlots.getRooms();
+        for (int i = 0; i < count && suggestions.size() < k; i++) {
+            int d = (int) (starts[i] >> 8) & 0xFF;
+            int h = (int) starts[i] & 0xFF;
+            Room chosen;
+            if (roomFits && (occupancy.roomMask(room) & OccupancyIndex.mask(d, h, duration)) == 0L) {
+                chosen = room;
+            } else {
+                chosen = rooms.smallestFree(room.isLab(), neededCap, d, h, duration);
+            }
+            if (chosen != null) {
+                suggestions.add(new ScheduledSession(module, lecturer, chosen,
+                        new Timeslot(OccupancyIndex.DAYS[d], h, duration), groupId));
+            }
+        }
+        return suggestions;
+    }
+
+    private void printAlternatives(Module module, Lecturer lecturer, Room room, Timeslot slot, String groupId) {
+        List<ScheduledSession> alternatives = suggestAlternatives(module, lecturer, room, slot, groupId, SUGGESTIONS);
+        if (alternatives.isEmpty()) return;
+        System.out.println("Nearest free alternatives:");
+        for (ScheduledSession s : alternatives) {
+            System.out.println(" - " + s.getTimeslot() + " in " + s.getRoom().getRoomId()
+                    + " (" + s.getRoom().getCapacity() + " seats)");
+        }
+    }
+
+    private static String format(List<ScheduledSession> sessions) {
+        if (sessions.isEmpty()) return "No sessions found.";
+        StringBuilder sb = new StringBuilder();
+        for (ScheduledSession s : sessions) {
+            sb.append(s).append("\n");
+        }
+        return sb.toString();
     }
 }
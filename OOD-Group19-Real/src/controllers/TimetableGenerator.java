@@ -3,14 +3,19 @@ package controllers;
 import Model.Academic.Module;
 import Model.People.Lecturer;
 import Model.Room.Room;
+import Model.Timetable.Cohorts;
+import Model.Timetable.KeyDictionary;
+import Model.Timetable.OccupancyIndex;
+import Model.Timetable.RoomIndex;
 import Model.Timetable.ScheduledSession;
 import Model.Timetable.Timeslot;
 import Model.Timetable.TimetableService;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
 /**
@@ -19,14 +24,35 @@ import java.util.Random;
  */
 public class TimetableGenerator {
 
+    /** How the generator decides where each session goes. */
+    public enum Engine {
+        /** Modules in file order, each hour in the first free slot of a shuffled day, hour and room order. */
+        GREEDY,
+        /** Most-constrained hour first with backtracking, see DSaturScheduler. */
+        DSATUR
+    }
+
     private static final String[] DAYS = {"MON", "TUE", "WED", "THU", "FRI"};
     private static final int START_HOUR = 9;
     private static final int END_HOUR = 18; // last start is 17
 
     private final DataManager data;
     private final TimetableService service;
+    private final long seed;
+    private final Engine engine;
+    private final Random random;
     private final List<ScheduledSession> generated = new ArrayList<>();
-    private final Random random = new Random();
+    private final OccupancyIndex occupancy = new OccupancyIndex();
+    private final List<String> warnings = new ArrayList<>();
+    private List<Lecturer> lecturers;
+    private DSaturScheduler scheduler;
+    /** Scheduler task number and the index of its "Could not place" warning. */
+    private final List<int[]> schedulerTasks = new ArrayList<>();
+    private int unplacedHours;
+    /** The smallest free room of each size, and the search orders reused by findFreeSession. */
+    private RoomIndex roomIndex;
+    private final int[] dayOrder = new int[DAYS.length];
+    private final int[] hourOrder = new int[END_HOUR - START_HOUR];
     
     /**
      * Creates a timetable generator using the data and timetable service
@@ -35,163 +61,325 @@ public class TimetableGenerator {
      * @param service the timetable service which checks for conflicts
      */
     public TimetableGenerator(DataManager data, TimetableService service) {
+        this(data, service, new Random().nextLong());
+    }
+
+    /**
+     * Creates a timetable generator whose room and time choices are fixed by a seed,
+     * so the same data and seed always give the same timetable.
+     *
+     * @param data the data storage for modules, lecturers, rooms etc
+     * @param service the timetable service which checks for conflicts
+     * @param seed the seed for the random choices
+     */
+    public TimetableGenerator(DataManager data, TimetableService service, long seed) {
+        this(data, service, seed, Engine.GREEDY);
+    }
+
+    /**
+     * Creates a seeded timetable generator using a given engine.
+     *
+     * @param data the data storage for modules, lecturers, rooms etc
+     * @param service the timetable service which checks for conflicts
+     * @param seed the seed for the random choices
+     * @param engine how sessions are placed
+     */
+    public TimetableGenerator(DataManager data, TimetableService service, long seed, Engine engine) {
         this.data = data;
         this.service = service;
+        this.seed = seed;
+        this.engine = engine;
+        this.random = new Random(seed);
+    }
+
+    /** @return the seed this generator's random choices come from */
+    public long getSeed() {
+        return seed;
     }
 
+    /**
+     * Generates a timetable, makes it the current one and writes it to a CSV file.
+     *
+     * @param outputCsvPath the file to write the generated sessions to
+     */
     public void generateAndLog(String outputCsvPath) {
-        generated.clear();
-        List<String[]> rows = new ArrayList<>();
-        rows.add(new String[]{"sessionId", "moduleCode", "day", "start", "end", "roomId", "lecturerId", "groupId"});
+        commit(generate(), outputCsvPath);
+    }
 
-        int nextId = 1;
+    /**
+     * Generates a timetable without changing the DataManager or the timetable service.
+     * The modules, rooms and lecturers are copied first, so nothing the generator
+     * uses is shared with the DataManager's lists while it runs.
+     *
+     * @return the generated timetable
+     */
+    public Result generate() {
+        return generate(List.copyOf(data.modules), List.copyOf(data.rooms), List.copyOf(data.lecturers));
+    }
 
-        for (Module module : data.modules) {
+    /**
+     * Generates a timetable from lists that are not changed while it runs.
+     * The lists may be shared by several generators running at the same time.
+     */
+    Result generate(List<Module> modules, List<Room> rooms, List<Lecturer> lecturers) {
+        this.lecturers = lecturers;
+        generated.clear();
+        occupancy.clear();
+        warnings.clear();
+        unplacedHours = 0;
+        roomIndex = new RoomIndex(rooms);
+        scheduler = (engine == Engine.DSATUR) ? new DSaturScheduler(rooms, random) : null;
+        schedulerTasks.clear();
+
+        for (Module module : modules) {
             Lecturer lecturer = pickLecturerForModule(module);
             if (lecturer == null) {
-                System.out.println("No lecturer for " + module.getModuleCode());
+                warnings.add("No lecturer for " + module.getModuleCode());
+                unplacedHours += module.getLecHours() + 2 * (module.getLabHours() + module.getTutHours());
                 continue;
             }
 
-            nextId = scheduleHours(rows, nextId, module, lecturer, module.getLecHours(), false, "ALL");
+            scheduleHours(module, lecturer, module.getLecHours(), false, "ALL");
 
             if (module.getLabHours() > 0) {
-                nextId = scheduleHours(rows, nextId, module, lecturer, module.getLabHours(), true, "G1");
-                nextId = scheduleHours(rows, nextId, module, lecturer, module.getLabHours(), true, "G2");
+                scheduleHours(module, lecturer, module.getLabHours(), true, "G1");
+                scheduleHours(module, lecturer, module.getLabHours(), true, "G2");
             }
 
             if (module.getTutHours() > 0) {
-                nextId = scheduleHours(rows, nextId, module, lecturer, module.getTutHours(), false, "G1");
-                nextId = scheduleHours(rows, nextId, module, lecturer, module.getTutHours(), false, "G2");
+                scheduleHours(module, lecturer, module.getTutHours(), false, "G1");
+                scheduleHours(module, lecturer, module.getTutHours(), false, "G2");
             }
         }
+        if (scheduler != null) placeBySaturation();
+
+        return new Result(seed, new ArrayList<>(generated), unplacedHours, new ArrayList<>(warnings));
+    }
+
+    /**
+     * Makes a generated timetable the current one: loads it into the timetable
+     * service and the DataManager, prints its warnings and writes it to a CSV file.
+     *
+     * @param result        the timetable to use
+     * @param outputCsvPath the file to write the sessions to
+     */
+    public void commit(Result result, String outputCsvPath) {
+        List<ScheduledSession> sessions = result.getSessions();
+        for (String warning : result.getWarnings()) {
+            System.out.println(warning);
+        }
 
-        service.loadSessions(generated);
-        data.sessions.clear();
-        data.sessions.addAll(generated);
+        service.loadSessions(sessions);
+        data.replaceSessions(sessions);
 
-        CSVWriter.writeCSV(outputCsvPath, rows);
-        System.out.println("Generated " + generated.size() + " sessions to " + outputCsvPath);
+        CSVWriter.write(outputCsvPath, out -> {
+            out.writeRow(DataManager.SESSION_HEADER);
+            int id = 1;
+            for (ScheduledSession s : sessions) {
+                out.writeRow(DataManager.sessionFields(String.valueOf(id++), s));
+            }
+        });
+        System.out.println("Generated " + sessions.size() + " sessions to " + outputCsvPath);
     }
 
     private Lecturer pickLecturerForModule(Module m) {
-        if (data.lecturers.isEmpty()) return null;
-        int idx = Math.abs(m.getModuleCode().hashCode()) % data.lecturers.size();
-        return data.lecturers.get(idx);
+        if (lecturers.isEmpty()) return null;
+        int idx = Math.abs(m.getModuleCode().hashCode()) % lecturers.size();
+        return lecturers.get(idx);
     }
 
-    private int scheduleHours(List<String[]> rows,
-                              int nextId,
-                              Module module,
-                              Lecturer lecturer,
-                              int hoursNeeded,
-                              boolean lab,
-                              String groupId) {
+    private void scheduleHours(Module module,
+                               Lecturer lecturer,
+                               int hoursNeeded,
+                               boolean lab,
+                               String groupId) {
+
+        if (scheduler != null) {
+            int task = scheduler.addTask(module, lecturer, hoursNeeded, lab, groupId, requiredCapacity(groupId));
+            schedulerTasks.add(new int[]{task, warnings.size()});
+            warnings.add(couldNotPlace(module, lab, groupId)); // removed again if every hour is placed
+            return;
+        }
 
         int remaining = hoursNeeded;
 
         while (remaining > 0) {
             ScheduledSession session = findFreeSession(module, lecturer, lab, groupId);
             if (session == null) {
-                System.out.println("Could not place " + module.getModuleCode()
-                        + " (" + (lab ? "lab" : "class") + ", group " + groupId + ")");
+                warnings.add(couldNotPlace(module, lab, groupId));
+                unplacedHours += remaining;
                 break;
             }
 
             generated.add(session);
-            Timeslot t = session.getTimeslot();
-            int endHour = t.getStartHour() + t.getDuration();
+            occupancy.add(session);
+            roomIndex.book(session);
 
-            rows.add(new String[]{
-                    String.valueOf(nextId++),
-                    module.getModuleCode(),
-                    t.getDay(),
-                    String.valueOf(t.getStartHour()),
-                    String.valueOf(endHour),
-                    session.getRoom().getRoomId(),
-                    lecturer.getLecturerId(),
-                    session.getGroupId()
-            });
+            remaining -= session.getTimeslot().getDuration(); // duration is 1
+        }
+    }
 
-            remaining -= t.getDuration(); // duration is 1
+    /**
+     * Runs the DSATUR engine over the hours collected by scheduleHours and drops
+     * the "Could not place" warnings of the tasks that were placed in full.
+     */
+    private void placeBySaturation() {
+        generated.addAll(scheduler.solve());
+
+        for (int i = schedulerTasks.size() - 1; i >= 0; i--) {
+            int[] task = schedulerTasks.get(i);
+            int missing = scheduler.unplacedHours(task[0]);
+            if (missing > 0) {
+                unplacedHours += missing;
+            } else {
+                warnings.remove(task[1]);
+            }
         }
+    }
 
-        return nextId;
+    private static String couldNotPlace(Module module, boolean lab, String groupId) {
+        return "Could not place " + module.getModuleCode()
+                + " (" + (lab ? "lab" : "class") + ", group " + groupId + ")";
     }
 
+    /**
+     * Finds the first free hour in a shuffled day and hour order, in the smallest
+     * room that is free then and seats the group. The orders are int arrays
+     * reused between calls, so the search builds nothing until a slot is accepted.
+     */
     private ScheduledSession findFreeSession(Module module,
                                              Lecturer lecturer,
                                              boolean lab,
                                              String groupId) {
 
-        List<String> days = new ArrayList<>(Arrays.asList(DAYS));
-        Collections.shuffle(days, random);
+        for (int d = 0; d < dayOrder.length; d++) dayOrder[d] = d;
+        shuffle(dayOrder, dayOrder.length);
 
-        List<Integer> hours = new ArrayList<>();
-        for (int h = START_HOUR; h < END_HOUR; h++) {
-            hours.add(h);
-        }
-        Collections.shuffle(hours, random);
+        for (int h = 0; h < hourOrder.length; h++) hourOrder[h] = START_HOUR + h;
+        shuffle(hourOrder, hourOrder.length);
 
-        List<Room> roomCandidates = new ArrayList<>();
         int neededCapacity = requiredCapacity(groupId);
-        for (Room room : data.rooms) {
-            if (lab && !room.isLab()) continue;
-            if (!lab && room.isLab()) continue;
-            if (room.getCapacity() < neededCapacity) continue;
-            roomCandidates.add(room);
-        }
-        Collections.shuffle(roomCandidates, random);
-        
-        
-        
-         for (String day : days) {
-            for (int hour : hours) {
-                Timeslot slot = new Timeslot(day, hour, 1);
-
-                for (Room room : roomCandidates) {
-                    ScheduledSession candidate =
-                            new ScheduledSession(module, lecturer, room, slot, groupId);
-                    
-                            if (!hasConflict(candidate)) {
-                        return candidate;
-                    }
+        // what the lecturer, group and cohort already have is the same for every room
+        long busy = occupancy.busyMask(module, lecturer, KeyDictionary.GROUPS.intern(groupId));
+
+        for (int day : dayOrder) {
+            for (int hour : hourOrder) {
+                if ((busy & OccupancyIndex.mask(day, hour, 1)) != 0L) continue;
+
+                Room room = roomIndex.smallestFree(lab, neededCapacity, day, hour, 1);
+                if (room != null) {
+                    return new ScheduledSession(module, lecturer, room, new Timeslot(DAYS[day], hour, 1), groupId);
                 }
             }
         }
         return null;
     }
 
+    /** Shuffles the first n values the same way Collections.shuffle shuffles a list. */
+    private void shuffle(int[] values, int n) {
+        for (int i = n; i > 1; i--) {
+            int j = random.nextInt(i);
+            int v = values[i - 1];
+            values[i - 1] = values[j];
+            values[j] = v;
+        }
+    }
+
     private int requiredCapacity(String groupId) {
         if (groupId == null || groupId.equalsIgnoreCase("ALL")) return 60;
         return 30;
     }
 
-    private boolean hasConflict(ScheduledSession candidate) {
-        for (ScheduledSession existing : generated) {
-            // room/lecturer/group conflict
-            if (existing.sameTimeWith(candidate)) return true;
+    /**
+     * One generated timetable with the seed it came from and how good it is.
+     * Nothing in it is shared with the DataManager until it is committed.
+     */
+    public static class Result {
+
+        private final long seed;
+        private final List<ScheduledSession> sessions;
+        private final int unplacedHours;
+        private final int idleHours;
+        private final List<String> warnings;
+
+        Result(long seed, List<ScheduledSession> sessions, int unplacedHours, List<String> warnings) {
+            this.seed = seed;
+            this.sessions = Collections.unmodifiableList(sessions);
+            this.unplacedHours = unplacedHours;
+            this.idleHours = idleHours(sessions);
+            this.warnings = Collections.unmodifiableList(warnings);
+        }
+
+        /** @return the seed that reproduces this timetable */
+        public long getSeed() {
+            return seed;
+        }
+
+        public List<ScheduledSession> getSessions() {
+            return sessions;
+        }
+
+        /** @return the module hours that could not be placed anywhere */
+        public int getUnplacedHours() {
+            return unplacedHours;
+        }
+
+        /** @return the free hours between classes over every cohort's days; lower is better */
+        public int getIdleHours() {
+            return idleHours;
+        }
 
-            Module m1 = existing.getModule();
-            Module m2 = candidate.getModule();
-            if (m1 == null || m2 == null) continue;
+        /** @return the "No lecturer" and "Could not place" messages, in the order they came up */
+        public List<String> getWarnings() {
+            return warnings;
+        }
 
-            boolean sameProgramme = m1.getProgrammeId().equalsIgnoreCase(m2.getProgrammeId());
-            boolean sameYear = m1.getYear() == m2.getYear();
-            boolean sameSemester = m1.getSemester() == m2.getSemester();
-            if (!sameProgramme || !sameYear || !sameSemester) continue;
+        /**
+         * Checks if this timetable is better than another: fewer unplaced hours
+         * first, then fewer idle hours.
+         *
+         * @param other the timetable to compare with
+         * @return true if this one should be kept instead of the other
+         */
+        public boolean isBetterThan(Result other) {
+            if (unplacedHours != other.unplacedHours) return unplacedHours < other.unplacedHours;
+            return idleHours < other.idleHours;
+        }
 
-            boolean overlaps = existing.getTimeslot().overlaps(candidate.getTimeslot());
-            if (!overlaps) continue;
+        @Override
+        public String toString() {
+            return "seed " + seed + ": " + sessions.size() + " sessions, "
+                    + unplacedHours + " unplaced hours, " + idleHours + " idle hours";
+        }
 
-            String g1 = existing.getGroupId();
-            String g2 = candidate.getGroupId();
-            boolean bothAll = (g1 == null || g1.equalsIgnoreCase("ALL")) &&
-                              (g2 == null || g2.equalsIgnoreCase("ALL"));
-            boolean sameGroup = g1 != null && g2 != null && g1.equalsIgnoreCase(g2);
+        /**
+         * Counts the gaps between the first and last class of each day for every
+         * student group, where a group attends its own classes and the "ALL"
+         * classes of its programme, year and semester.
+         */
+        private static int idleHours(List<ScheduledSession> sessions) {
+            // programme/year/semester -> group key -> week bitmap
+            Map<Long, Map<Integer, Long>> courses = new HashMap<>();
+            for (ScheduledSession s : sessions) {
+                long slot = OccupancyIndex.slotMask(s.getTimeslot());
+                long course = Cohorts.courseKey(s.getModule());
+                if (course == Cohorts.NONE || slot == 0L) continue;
+                int group = (s.getGroupKey() == KeyDictionary.NONE) ? KeyDictionary.ALL_GROUPS : s.getGroupKey();
+                courses.computeIfAbsent(course, k -> new HashMap<>()).merge(group, slot, (a, b) -> a | b);
+            }
 
-            if (bothAll || sameGroup) return true;
+            int idle = 0;
+            for (Map<Integer, Long> groups : courses.values()) {
+                long all = groups.getOrDefault(KeyDictionary.ALL_GROUPS, 0L);
+                if (groups.size() == 1 && groups.containsKey(KeyDictionary.ALL_GROUPS)) {
+                    idle += Cohorts.idleHours(all);
+                    continue;
+                }
+                for (Map.Entry<Integer, Long> e : groups.entrySet()) {
+                    if (e.getKey() != KeyDictionary.ALL_GROUPS) idle += Cohorts.idleHours(all | e.getValue());
+                }
+            }
+            return idle;
         }
-        return false;
     }
 }
@@ -0,0 +1,540 @@
+package controllers;
+
+import Model.Academic.Module;
+import Model.Room.Room;
+import Model.Timetable.Cohorts;
+import Model.Timetable.KeyDictionary;
+import Model.Timetable.OccupancyIndex;
+import Model.Timetable.ScheduledSession;
+import Model.Timetable.Timeslot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Improves a clash-free timetable by simulated annealing, without ever making
+ * it clash.
+ *
+ * The score is a penalty, lower is better, made of:
+ * <ul>
+ *   <li>IDLE_HOUR for every free hour between two classes of a student group on one day,
+ *       where a group attends its own classes and its course's "ALL" classes</li>
+ *   <li>LATE_SESSION for every class starting at LATE_HOUR or later</li>
+ *   <li>LECTURER_DAY for every day a lecturer has to be on campus</li>
+ *   <li>one point per EMPTY_SEATS seats a class leaves empty, against the 60 or 30 it needs</li>
+ * </ul>
+ *
+ * A move either puts one session in another hour and room, or swaps the hours
+ * and rooms of two sessions. Moves that would clash are skipped, using the
+ * OccupancyIndex rules: rooms, lecturers and groups clash everywhere, and
+ * "ALL" sessions clash with the other "ALL" sessions of their course. Every session
+ * keeps per-hour use counts of rooms, lecturers, groups, courses and student
+ * views up to date, so adding or removing one session changes the score only
+ * by what it touches: its lecturer's day, its group views' days, its hour and
+ * its room. A move therefore costs a few dozen array reads, whatever the size
+ * of the timetable.
+ *
+ * Worse moves are accepted with probability exp(-delta / T), with T cooling
+ * geometrically over the time budget, or over the moves when a move cap is
+ * given, so that a capped run finishing inside its time budget is the same
+ * every time for the same seed. The best timetable seen is kept, and the
+ * scores are recorded at every tenth of the budget.
+ *
+ * Only one-hour sessions inside the MON-FRI 9:00-18:00 grid are moved, which
+ * is every session the generator makes. Longer sessions on the grid stay put
+ * but still block their hours; sessions off the grid are left alone.
+ */
+public class TimetableOptimizer {
+
+    public static final int IDLE_HOUR = 3;
+    public static final int LATE_SESSION = 2;
+    public static final int LATE_HOUR = 17;
+    public static final int LECTURER_DAY = 4;
+    public static final int EMPTY_SEATS = 20;
+
+    private static final int DAYS = OccupancyIndex.DAYS.length;
+    private static final int HOURS = OccupancyIndex.HOURS_PER_DAY;
+    private static final int SLOTS = DAYS * HOURS;
+
+    private final List<Room> rooms;
+    private final Random random;
+
+    private long initialScore;
+    private long finalScore;
+    private long moves;
+    private long accepted;
+    private final List<String> progress = new ArrayList<>();
+
+    // per session on the grid
+    private int n;
+    private int[] source;      // index in the timetable's session list
+    private int[] slot;        // day * HOURS + hour - FIRST_HOUR
+    private int[] length;
+    private int[] room;
+    private int[] lecturer;    // dense lecturer index, or -1
+    private int[] group;       // KeyDictionary.GROUPS key, ALL_GROUPS for "ALL"
+    private int[] course;      // dense programme/year/semester index, or -1
+    private int[] needed;      // seats needed
+    private int[][] views;     // student views the session belongs to
+    private int[][] pools;     // rooms the session may use
+    private int[] movable;     // indexes of the sessions that may move
+
+    // use counts per resource and slot
+    private int[] roomUse;
+    private int[] lecturerUse;
+    private int[] groupUse;
+    private int[] courseAllUse;
+    private int[] viewUse;
+    private int[] lecturerDays;
+    private long score;
+
+    /**
+     * @param rooms the rooms sessions may be moved into
+     * @param seed  the seed for the moves, so a run bounded by moves can be repeated
+     */
+    public TimetableOptimizer(List<Room> rooms, long seed) {
+        this.rooms = new ArrayList<>(rooms);
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Optimises a timetable for a length of time.
+     *
+     * @param timetable    the clash-free timetable to improve; it is not changed
+     * @param budgetMillis how long to search for
+     * @return the best timetable found, with the same seed, unplaced hours and warnings
+     */
+    public TimetableGenerator.Result optimise(TimetableGenerator.Result timetable, long budgetMillis) {
+        return optimise(timetable, budgetMillis, Long.MAX_VALUE);
+    }
+
+    /**
+     * Optimises a timetable until the time budget or the number of moves runs out.
+     * The temperature follows the number of moves, so the result only depends on
+     * the seed as long as the moves run out first.
+     *
+     * @param timetable    the clash-free timetable to improve; it is not changed
+     * @param budgetMillis how long to search for at most
+     * @param maxMoves     how many moves to try at most
+     * @return the best timetable found, with the same seed, unplaced hours and warnings
+     */
+    public TimetableGenerator.Result optimise(TimetableGenerator.Result timetable, long budgetMillis, long maxMoves) {
+        List<ScheduledSession> sessions = timetable.getSessions();
+        build(sessions);
+        initialScore = score;
+        moves = 0;
+        accepted = 0;
+        progress.clear();
+
+        int[] bestSlot = slot.clone();
+        int[] bestRoom = room.clone();
+        long best = score;
+
+        long start = System.nanoTime();
+        long budget = Math.max(budgetMillis, 0) * 1_000_000L;
+        double t0 = startTemperature();
+        double t = t0;
+        double fraction = 0;
+        int checkpoint = 1;
+
+        while (movable.length > 0 && moves < maxMoves) {
+            if ((moves & 255) == 0) {
+                long elapsed = System.nanoTime() - start;
+                if (elapsed >= budget) break;
+                fraction = (maxMoves == Long.MAX_VALUE) ? (double) elapsed / budget : (double) moves / maxMoves;
+                t = t0 * Math.pow(0.001, fraction);
+                while (fraction * 10 >= checkpoint) {
+                    record(elapsed, best, t);
+                    checkpoint++;
+                }
+            }
+            moves++;
+
+            long delta = random.nextBoolean() ? tryMove() : trySwap();
+            if (delta == Long.MAX_VALUE) continue;
+            if (delta <= 0 || random.nextDouble() < Math.exp(-delta / t)) {
+                accepted++;
+                if (score < best) {
+                    best = score;
+                    System.arraycopy(slot, 0, bestSlot, 0, n);
+                    System.arraycopy(room, 0, bestRoom, 0, n);
+                }
+            } else {
+                undo();
+            }
+        }
+
+        slot = bestSlot;
+        room = bestRoom;
+        finalScore = best;
+        record(System.nanoTime() - start, best, t);
+
+        List<ScheduledSession> result = new ArrayList<>(sessions);
+        for (int i = 0; i < n; i++) {
+            ScheduledSession s = sessions.get(source[i]);
+            Timeslot old = s.getTimeslot();
+            int day = slot[i] / HOURS;
+            int hour = OccupancyIndex.FIRST_HOUR + slot[i] % HOURS;
+            Room r = rooms.get(room[i]);
+            if (old.getDayKey() == day && old.getStartHour() == hour && s.getRoom() == r) continue;
+            result.set(source[i], new ScheduledSession(s.getModule(), s.getLecturer(), r,
+                    new Timeslot(OccupancyIndex.DAYS[day], hour, old.getDuration()), s.getGroupId()));
+        }
+        return new TimetableGenerator.Result(timetable.getSeed(), result,
+                timetable.getUnplacedHours(), new ArrayList<>(timetable.getWarnings()));
+    }
+
+    /**
+     * Scores a timetable from scratch, with the same rules the optimiser uses.
+     *
+     * @param sessions the timetable
+     * @return its penalty, lower is better
+     */
+    public static long score(List<ScheduledSession> sessions, List<Room> rooms) {
+        TimetableOptimizer scorer = new TimetableOptimizer(rooms, 0);
+        scorer.build(sessions);
+        return scorer.fullScore();
+    }
+
+    /** @return the score of the timetable given to the last optimise call */
+    public long getInitialScore() {
+        return initialScore;
+    }
+
+    /** @return the score of the timetable the last optimise call returned */
+    public long getFinalScore() {
+        return finalScore;
+    }
+
+    /** @return the moves tried by the last optimise call */
+    public long getMoves() {
+        return moves;
+    }
+
+    /** @return the moves kept by the last optimise call */
+    public long getAcceptedMoves() {
+        return accepted;
+    }
+
+    /** @return one line per tenth of the budget with the time, best score and temperature */
+    public List<String> getProgress() {
+        return Collections.unmodifiableList(progress);
+    }
+
+    @Override
+    public String toString() {
+        return "score " + initialScore + " -> " + finalScore + " after " + moves + " moves ("
+                + accepted + " accepted)";
+    }
+
+    private void record(long elapsedNanos, long best, double temperature) {
+        progress.add(String.format("%6d ms  best %6d  current %6d  T %.3f",
+                elapsedNanos / 1_000_000, best, score, temperature));
+    }
+
+    // ---- moves ----
+
+    private static final int NONE = -1;
+    private int undoA = NONE;
+    private int undoB = NONE;
+    private int undoSlotA, undoRoomA, undoSlotB, undoRoomB;
+
+    /**
+     * Moves one session to a random hour and room of its pool.
+     *
+     * @return the change in score, or Long.MAX_VALUE if the move was not made
+     */
+    private long tryMove() {
+        int i = movable[random.nextInt(movable.length)];
+        int[] pool = pools[i];
+        if (pool.length == 0) return Long.MAX_VALUE;
+        int newSlot = random.nextInt(SLOTS);
+        int newRoom = pool[random.nextInt(pool.length)];
+        if (newSlot == slot[i] && newRoom == room[i]) return Long.MAX_VALUE;
+
+        long before = score;
+        int oldSlot = slot[i];
+        int oldRoom = room[i];
+        remove(i);
+        if (!fits(i, newSlot, newRoom)) {
+            add(i);
+            return Long.MAX_VALUE;
+        }
+        slot[i] = newSlot;
+        room[i] = newRoom;
+        add(i);
+
+        undoA = i;
+        undoSlotA = oldSlot;
+        undoRoomA = oldRoom;
+        undoB = NONE;
+        return score - before;
+    }
+
+    /**
+     * Swaps the hours and rooms of two sessions that can use each other's room.
+     *
+     * @return the change in score, or Long.MAX_VALUE if the swap was not made
+     */
+    private long trySwap() {
+        int a = movable[random.nextInt(movable.length)];
+        int b = movable[random.nextInt(movable.length)];
+        if (a == b || slot[a] == slot[b] && room[a] == room[b]) return Long.MAX_VALUE;
+        if (!inPool(a, room[b]) || !inPool(b, room[a])) return Long.MAX_VALUE;
+
+        long before = score;
+        int slotA = slot[a], roomA = room[a], slotB = slot[b], roomB = room[b];
+        remove(a);
+        remove(b);
+        boolean ok = fits(a, slotB, roomB);
+        if (ok) {
+            slot[a] = slotB;
+            room[a] = roomB;
+            add(a);
+            ok = fits(b, slotA, roomA);
+            if (!ok) {
+                remove(a);
+                slot[a] = slotA;
+                room[a] = roomA;
+            }
+        }
+        if (!ok) {
+            add(a);
+            add(b);
+            return Long.MAX_VALUE;
+        }
+        slot[b] = slotA;
+        room[b] = roomA;
+        add(b);
+
+        undoA = a;
+        undoSlotA = slotA;
+        undoRoomA = roomA;
+        undoB = b;
+        undoSlotB = slotB;
+        undoRoomB = roomB;
+        return score - before;
+    }
+
+    /** Puts back the sessions changed by the last move or swap. */
+    private void undo() {
+        remove(undoA);
+        if (undoB != NONE) remove(undoB);
+        slot[undoA] = undoSlotA;
+        room[undoA] = undoRoomA;
+        add(undoA);
+        if (undoB != NONE) {
+            slot[undoB] = undoSlotB;
+            room[undoB] = undoRoomB;
+            add(undoB);
+        }
+    }
+
+    /** Checks a removed session could go in a slot and room without clashing. */
+    private boolean fits(int i, int s, int r) {
+        if (s + length[i] > (s / HOURS + 1) * HOURS) return false;
+        for (int h = s; h < s + length[i]; h++) {
+            if (roomUse[r * SLOTS + h] > 0) return false;
+            if (lecturer[i] >= 0 && lecturerUse[lecturer[i] * SLOTS + h] > 0) return false;
+            if (group[i] != KeyDictionary.ALL_GROUPS && groupUse[group[i] * SLOTS + h] > 0) return false;
+            if (group[i] == KeyDictionary.ALL_GROUPS && course[i] >= 0
+                    && courseAllUse[course[i] * SLOTS + h] > 0) return false;
+        }
+        return true;
+    }
+
+    private boolean inPool(int i, int r) {
+        Room candidate = rooms.get(r);
+        Room current = rooms.get(room[i]);
+        return candidate.isLab() == current.isLab() && candidate.getCapacity() >= needed[i];
+    }
+
+    /** A temperature at which an average worsening move is accepted about half the time. */
+    private double startTemperature() {
+        long total = 0;
+        int worse = 0;
+        for (int k = 0; k < 200 && movable.length > 0; k++) {
+            long delta = random.nextBoolean() ? tryMove() : trySwap();
+            if (delta == Long.MAX_VALUE) continue;
+            if (delta > 0) {
+                total += delta;
+                worse++;
+            }
+            undo();
+        }
+        return (worse == 0) ? 1.0 : Math.max(1.0, (double) total / worse / Math.log(2));
+    }
+
+    // ---- incremental score ----
+
+    /** Books a session into the use counts and adds what it costs to the score. */
+    private void add(int i) {
+        change(i, 1);
+    }
+
+    /** Takes a session out of the use counts and its cost out of the score. */
+    private void remove(int i) {
+        change(i, -1);
+    }
+
+    private void change(int i, int by) {
+        int day = slot[i] / HOURS;
+        for (int v : views[i]) score -= IDLE_HOUR * idleHours(v, day);
+        if (lecturer[i] >= 0) score -= LECTURER_DAY * (lecturerDays[lecturer[i] * DAYS + day] > 0 ? 1 : 0);
+
+        for (int h = slot[i]; h < slot[i] + length[i]; h++) {
+            roomUse[room[i] * SLOTS + h] += by;
+            if (lecturer[i] >= 0) lecturerUse[lecturer[i] * SLOTS + h] += by;
+            if (group[i] != KeyDictionary.ALL_GROUPS) groupUse[group[i] * SLOTS + h] += by;
+            if (group[i] == KeyDictionary.ALL_GROUPS && course[i] >= 0) courseAllUse[course[i] * SLOTS + h] += by;
+            for (int v : views[i]) viewUse[v * SLOTS + h] += by;
+        }
+        if (lecturer[i] >= 0) lecturerDays[lecturer[i] * DAYS + day] += by;
+
+        for (int v : views[i]) score += IDLE_HOUR * idleHours(v, day);
+        if (lecturer[i] >= 0) score += LECTURER_DAY * (lecturerDays[lecturer[i] * DAYS + day] > 0 ? 1 : 0);
+        score += by * ownCost(i);
+    }
+
+    /** The part of the score a session pays on its own: a late start and empty seats. */
+    private int ownCost(int i) {
+        int hour = OccupancyIndex.FIRST_HOUR + slot[i] % HOURS;
+        int cost = (hour >= LATE_HOUR) ? LATE_SESSION : 0;
+        return cost + Math.max(rooms.get(room[i]).getCapacity() - needed[i], 0) / EMPTY_SEATS;
+    }
+
+    /** Free hours between the first and last class of a student view on a day. */
+    private int idleHours(int v, int day) {
+        int base = v * SLOTS + day * HOURS;
+        int busy = 0;
+        for (int h = 0; h < HOURS; h++) {
+            if (viewUse[base + h] > 0) busy |= 1 << h;
+        }
+        return Cohorts.idleHoursOfDay(busy);
+    }
+
+    /** Adds up the whole score from the use counts, without the incremental bookkeeping. */
+    private long fullScore() {
+        long total = 0;
+        for (int v = 0; v < viewUse.length / SLOTS; v++) {
+            for (int d = 0; d < DAYS; d++) total += IDLE_HOUR * idleHours(v, d);
+        }
+        for (int days : lecturerDays) total += (days > 0) ? LECTURER_DAY : 0;
+        for (int i = 0; i < n; i++) total += ownCost(i);
+        return total;
+    }
+
+    // ---- set-up ----
+
+    /** Indexes the sessions on the grid and books them all. */
+    private void build(List<ScheduledSession> sessions) {
+        Map<Room, Integer> roomIndex = new IdentityHashMap<>();
+        for (int r = 0; r < rooms.size(); r++) roomIndex.putIfAbsent(rooms.get(r), r);
+        Map<Integer, Integer> lecturerIndex = new HashMap<>();
+        Map<Long, Integer> courseIndex = new HashMap<>();
+        Map<Long, List<Integer>> courseGroups = new HashMap<>();
+
+        List<Integer> onGrid = new ArrayList<>();
+        for (int k = 0; k < sessions.size(); k++) {
+            ScheduledSession s = sessions.get(k);
+            if (s.getRoom() != null && OccupancyIndex.fitsGrid(s.getTimeslot())) onGrid.add(k);
+        }
+
+        n = onGrid.size();
+        source = new int[n];
+        slot = new int[n];
+        length = new int[n];
+        room = new int[n];
+        lecturer = new int[n];
+        group = new int[n];
+        course = new int[n];
+        needed = new int[n];
+        views = new int[n][];
+        pools = new int[n][];
+        long[] courseKey = new long[n];
+        int maxGroup = 0;
+        List<Integer> canMove = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            ScheduledSession s = sessions.get(onGrid.get(i));
+            Timeslot t = s.getTimeslot();
+            source[i] = onGrid.get(i);
+            slot[i] = t.getDayKey() * HOURS + t.getStartHour() - OccupancyIndex.FIRST_HOUR;
+            length[i] = t.getDuration();
+            Integer r = roomIndex.get(s.getRoom());
+            if (r == null) {
+                r = rooms.size();
+                rooms.add(s.getRoom());
+                roomIndex.put(s.getRoom(), r);
+            }
+            room[i] = r;
+            lecturer[i] = (s.getLecturer() == null) ? -1
+                    : lecturerIndex.computeIfAbsent(s.getLecturer().getLecturerKey(), k -> lecturerIndex.size());
+            group[i] = (s.getGroupKey() == KeyDictionary.NONE) ? KeyDictionary.ALL_GROUPS : s.getGroupKey();
+            maxGroup = Math.max(maxGroup, group[i]);
+            needed[i] = (group[i] == KeyDictionary.ALL_GROUPS) ? 60 : 30;
+
+            Module m = s.getModule();
+            courseKey[i] = Cohorts.courseKey(m);
+            course[i] = (courseKey[i] == Cohorts.NONE) ? -1 : courseIndex.computeIfAbsent(courseKey[i], k -> courseIndex.size());
+            if (courseKey[i] != Cohorts.NONE) {
+                List<Integer> groups = courseGroups.computeIfAbsent(courseKey[i], k -> new ArrayList<>());
+                if (group[i] != KeyDictionary.ALL_GROUPS && !groups.contains(group[i])) groups.add(group[i]);
+            }
+            if (length[i] == 1) canMove.add(i);
+        }
+
+        // student views: one per group of a course, or one for the whole course if it has no groups
+        Map<Long, Integer> viewIndex = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (course[i] < 0) {
+                views[i] = new int[0];
+                continue;
+            }
+            List<Integer> groups = courseGroups.get(courseKey[i]);
+            List<Integer> own = new ArrayList<>();
+            if (groups.isEmpty()) {
+                own.add(KeyDictionary.ALL_GROUPS);
+            } else if (group[i] == KeyDictionary.ALL_GROUPS) {
+                own.addAll(groups);
+            } else {
+                own.add(group[i]);
+            }
+            views[i] = new int[own.size()];
+            for (int k = 0; k < own.size(); k++) {
+                long key = Cohorts.cohortKey(courseKey[i], own.get(k));
+                views[i][k] = viewIndex.computeIfAbsent(key, x -> viewIndex.size());
+            }
+        }
+
+        // rooms each movable session may use, the same rule as the generator
+        Map<Long, int[]> poolCache = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            boolean lab = rooms.get(room[i]).isLab();
+            long key = ((long) (lab ? 1 : 0) << 32) | needed[i];
+            final int need = needed[i];
+            pools[i] = poolCache.computeIfAbsent(key, k -> {
+                List<Integer> fit = new ArrayList<>();
+                for (int r = 0; r < rooms.size(); r++) {
+                    if (rooms.get(r).isLab() == lab && rooms.get(r).getCapacity() >= need) fit.add(r);
+                }
+                return fit.stream().mapToInt(Integer::intValue).toArray();
+            });
+        }
+        movable = canMove.stream().mapToInt(Integer::intValue).toArray();
+
+        roomUse = new int[rooms.size() * SLOTS];
+        lecturerUse = new int[lecturerIndex.size() * SLOTS];
+        groupUse = new int[(maxGroup + 1) * SLOTS];
+        courseAllUse = new int[courseIndex.size() * SLOTS];
+        viewUse = new int[viewIndex.size() * SLOTS];
+        lecturerDays = new int[lecturerIndex.size() * DAYS];
+        score = 0;
+        for (int i = 0; i < n; i++) add(i);
+    }
+}
@@ -0,0 +1,50 @@
+package Model.People;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that passwords are only ever stored as salted hashes that decode back unchanged.
+ */
+class CredentialTest {
+
+    @Test
+    void matchesOnlyItsPassword() {
+        Credential c = Credential.hash("pass123");
+
+        assertTrue(c.matches("pass123"));
+        assertFalse(c.matches("pass124"));
+        assertFalse(c.matches(""));
+        assertFalse(c.matches(null));
+    }
+
+    @Test
+    void decodesWhatItEncodes() {
+        Credential c = Credential.hash("pass123", new byte[16], 7);
+        String stored = c.encode();
+
+        assertTrue(Credential.isEncoded(stored));
+        assertFalse(stored.contains("pass123"));
+        Credential decoded = Credential.decode(stored);
+        assertEquals(stored, decoded.encode());
+        assertEquals(7, decoded.getIterations());
+        assertTrue(decoded.matches("pass123"));
+    }
+
+    @Test
+    void saltsEveryNewPassword() {
+        assertNotEquals(Credential.hash("pass123").encode(), Credential.hash("pass123").encode());
+    }
+
+    @Test
+    void rejectsPlainTextAndDamagedValues() {
+        assertFalse(Credential.isEncoded("pass123"));
+        assertThrows(IllegalArgumentException.class, () -> Credential.decode("pass123"));
+        assertThrows(IllegalArgumentException.class, () -> Credential.decode("pbkdf2$7$AAAA$AAAA"));
+    }
+}
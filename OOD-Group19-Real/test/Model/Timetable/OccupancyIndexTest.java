@@ -0,0 +1,130 @@
+package Model.Timetable;
+
+import Model.Academic.Module;
+import Model.People.Lecturer;
+import Model.Room.Room;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the bitmap clash check gives the same answer as
+ * ScheduledSession.sameTimeWith plus the programme/year/semester cohort rule.
+ */
+class OccupancyIndexTest {
+
+    private static final String[] GROUPS = {null, "ALL", "G1", "G2"};
+
+    private final Module[] modules = {
+            new Module("Maths", "OI101", "LM121", 1, 1, 2, 0, 1),
+            new Module("Physics", "OI102", "LM121", 1, 1, 2, 1, 0),
+            new Module("Chemistry", "OI103", "LM121", 1, 2, 2, 1, 0),
+            new Module("Biology", "OI104", "LM051", 1, 1, 2, 1, 0),
+            new Module("History", "OI105", "LM051", 2, 1, 2, 0, 1)
+    };
+    private final Lecturer[] lecturers = {
+            new Lecturer("OI-L0", "Ann", "ann@ul.ie", null, "CSIS"),
+            new Lecturer("OI-L1", "Bob", "bob@ul.ie", null, "CSIS"),
+            new Lecturer("OI-L2", "Cara", "cara@ul.ie", null, "Maths")
+    };
+    private final Room[] rooms = {
+            new Room("OI-R0", "Lab", 30, "CSG"),
+            new Room("OI-R1", "Lecture", 120, "CSG"),
+            new Room("OI-R2", "Tutorial", 20, "Main")
+    };
+
+    @Test
+    void groupsClashAcrossProgrammes() {
+        OccupancyIndex index = new OccupancyIndex();
+        index.add(session(0, 0, 0, "TUE", 10, 2, "G1"));
+
+        assertTrue(index.hasConflict(session(3, 1, 1, "TUE", 11, 1, "G1")));
+        assertFalse(index.hasConflict(session(3, 1, 1, "TUE", 11, 1, "G2")));
+        assertFalse(index.hasConflict(session(3, 1, 1, "TUE", 12, 1, "G1")));
+    }
+
+    @Test
+    void wholeCourseSessionsClashWithinTheirCourse() {
+        OccupancyIndex index = new OccupancyIndex();
+        index.add(session(0, 0, 0, "WED", 9, 1, "ALL"));
+
+        assertTrue(index.hasConflict(session(1, 1, 1, "WED", 9, 1, null)));
+        assertFalse(index.hasConflict(session(2, 1, 1, "WED", 9, 1, "ALL"))); // semester 2
+        assertFalse(index.hasConflict(session(3, 1, 1, "WED", 9, 1, "ALL"))); // another programme
+    }
+
+    @Test
+    void sessionRunningPastTheGridStillBooksItsFirstHour() {
+        OccupancyIndex index = new OccupancyIndex();
+        index.add(session(0, 0, 0, "FRI", 17, 2, "G1"));
+
+        assertTrue(index.hasConflict(session(3, 1, 0, "FRI", 17, 1, "G2")));
+    }
+
+    @Test
+    void matchesPairwiseRulesOnRandomTimetables() {
+        Random random = new Random(19);
+        for (int trial = 0; trial < 300; trial++) {
+            List<ScheduledSession> placed = new ArrayList<>();
+            OccupancyIndex index = new OccupancyIndex();
+            for (int i = 0; i < 20; i++) {
+                ScheduledSession s = randomSession(random, 9 + random.nextInt(9));
+                placed.add(s);
+                index.add(s);
+            }
+
+            for (int i = 0; i < 40; i++) {
+                int start = 9 + random.nextInt(8);
+                ScheduledSession candidate = randomSession(random, start);
+                if (!OccupancyIndex.fitsGrid(candidate.getTimeslot())) continue;
+
+                assertEquals(clashesPairwise(placed, candidate), index.hasConflict(candidate),
+                        "trial " + trial + ": " + candidate);
+            }
+        }
+    }
+
+    /** The clash rules written out one pair at a time. */
+    private static boolean clashesPairwise(List<ScheduledSession> placed, ScheduledSession candidate) {
+        for (ScheduledSession s : placed) {
+            if (s.sameTimeWith(candidate)) return true;
+            if (sameCohort(s, candidate) && s.getTimeslot().overlaps(candidate.getTimeslot())) return true;
+        }
+        return false;
+    }
+
+    /** Same programme, year and semester, and both for the whole course or both for the same group. */
+    private static boolean sameCohort(ScheduledSession a, ScheduledSession b) {
+        Module x = a.getModule();
+        Module y = b.getModule();
+        return x.getProgrammeId().equals(y.getProgrammeId())
+                && x.getYear() == y.getYear()
+                && x.getSemester() == y.getSemester()
+                && group(a).equals(group(b));
+    }
+
+    private static String group(ScheduledSession s) {
+        return (s.getGroupId() == null) ? "ALL" : s.getGroupId();
+    }
+
+    private ScheduledSession randomSession(Random random, int start) {
+        return new ScheduledSession(modules[random.nextInt(modules.length)],
+                lecturers[random.nextInt(lecturers.length)],
+                rooms[random.nextInt(rooms.length)],
+                new Timeslot(OccupancyIndex.DAYS[random.nextInt(OccupancyIndex.DAYS.length)],
+                        start, 1 + random.nextInt(2)),
+                GROUPS[random.nextInt(GROUPS.length)]);
+    }
+
+    private ScheduledSession session(int module, int lecturer, int room, String day, int start, int hours,
+                                     String group) {
+        return new ScheduledSession(modules[module], lecturers[lecturer], rooms[room],
+                new Timeslot(day, start, hours), group);
+    }
+}
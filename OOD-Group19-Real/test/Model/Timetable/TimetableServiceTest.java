@@ -0,0 +1,99 @@
+package Model.Timetable;
+
+import Model.Academic.Module;
+import Model.People.Lecturer;
+import Model.Room.Room;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the indexed room and lecturer checks report the same conflicts,
+ * in the same order, as a scan of every session with sameTimeWith.
+ */
+class TimetableServiceTest {
+
+    private final Module[] modules = {
+            new Module("Maths", "TS101", "LM121", 1, 1, 2, 0, 1),
+            new Module("Biology", "TS102", "LM051", 2, 1, 2, 1, 0)
+    };
+    private final Lecturer[] lecturers = {
+            new Lecturer("TS-L0", "Ann", "ann@ul.ie", null, "CSIS"),
+            new Lecturer("TS-L1", "Bob", "bob@ul.ie", null, "CSIS"),
+            new Lecturer("TS-L2", "Cara", "cara@ul.ie", null, "Maths")
+    };
+    private final Room[] rooms = {
+            new Room("TS-R0", "Lab", 30, "CSG"),
+            new Room("TS-R1", "Lecture", 120, "CSG"),
+            new Room("TS-R2", "Tutorial", 20, "Main")
+    };
+
+    @Test
+    void rejectsClashAndKeepsTimetable() {
+        TimetableService service = new TimetableService();
+        ScheduledSession first = new ScheduledSession(modules[0], lecturers[0], rooms[0], new Timeslot("MON", 9, 2));
+        assertTrue(service.addSession(first).isEmpty());
+
+        ScheduledSession sameRoom = new ScheduledSession(modules[1], lecturers[1], rooms[0], new Timeslot("MON", 10, 1));
+        assertEquals(1, service.addSession(sameRoom).size());
+        assertEquals(List.of(first), service.getAllSessions());
+
+        ScheduledSession later = new ScheduledSession(modules[1], lecturers[0], rooms[0], new Timeslot("MON", 11, 1));
+        assertTrue(service.addSession(later).isEmpty());
+    }
+
+    @Test
+    void removedSessionNoLongerClashes() {
+        TimetableService service = new TimetableService();
+        ScheduledSession first = new ScheduledSession(modules[0], lecturers[0], rooms[0], new Timeslot("TUE", 9, 1));
+        service.addSession(first);
+
+        assertTrue(service.removeSession(first));
+        assertFalse(service.removeSession(first));
+        assertTrue(service.checkConflicts(first).isEmpty());
+    }
+
+    @Test
+    void matchesPairwiseScanOnRandomTimetables() {
+        Random random = new Random(4013);
+        for (int trial = 0; trial < 300; trial++) {
+            List<ScheduledSession> loaded = new ArrayList<>();
+            for (int i = 0; i < 25; i++) loaded.add(randomSession(random));
+            TimetableService service = new TimetableService();
+            service.loadSessions(loaded);
+
+            for (int i = 0; i < 20; i++) {
+                ScheduledSession candidate = randomSession(random);
+                assertEquals(conflictsPairwise(loaded, candidate), service.checkConflicts(candidate),
+                        "trial " + trial + ": " + candidate);
+            }
+        }
+    }
+
+    /** The conflict check as a scan over the timetable in list order. */
+    private static List<String> conflictsPairwise(List<ScheduledSession> sessions, ScheduledSession candidate) {
+        List<String> conflicts = new ArrayList<>();
+        for (ScheduledSession existing : sessions) {
+            if (!existing.sameTimeWith(candidate)) continue;
+            if (existing.getRoom().equals(candidate.getRoom())) conflicts.add("ROOM conflict with " + existing);
+            if (existing.getLecturer().equals(candidate.getLecturer())) {
+                conflicts.add("LECTURER conflict with " + existing);
+            }
+        }
+        return conflicts;
+    }
+
+    private ScheduledSession randomSession(Random random) {
+        return new ScheduledSession(modules[random.nextInt(modules.length)],
+                lecturers[random.nextInt(lecturers.length)],
+                rooms[random.nextInt(rooms.length)],
+                new Timeslot(OccupancyIndex.DAYS[random.nextInt(2)], 9 + random.nextInt(8), 1 + random.nextInt(3)),
+                random.nextBoolean() ? "ALL" : "G1");
+    }
+}
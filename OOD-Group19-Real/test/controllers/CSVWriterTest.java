@@ -0,0 +1,83 @@
+package controllers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that whatever CSVWriter writes, CSVReader reads back unchanged.
+ */
+class CSVWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsAwkwardFields() {
+        List<String[]> rows = List.of(
+                new String[]{"id", "name", "note"},
+                new String[]{"1", "O'Brien, John", "says \"hi\""},
+                new String[]{"2", "two\nlines", "crlf\r\nend"},
+                new String[]{"3", "  padded  ", ""},
+                new String[]{"4", "\"", ","},
+                new String[]{"5", "Seán Ó Sé", "€"});
+        String file = dir.resolve("rows.csv").toString();
+
+        assertTrue(CSVWriter.writeCSV(file, rows));
+
+        List<String[]> read = CSVReader.readCSV(file);
+        assertEquals(rows.size(), read.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertArrayEquals(rows.get(i), read.get(i), "row " + i);
+        }
+    }
+
+    @Test
+    void writesNullAsEmptyField() {
+        String file = dir.resolve("nulls.csv").toString();
+        assertTrue(CSVWriter.write(file, out -> out.writeRow("a", null, "c")));
+
+        assertArrayEquals(new String[]{"a", "", "c"}, CSVReader.readCSV(file).get(0));
+    }
+
+    @Test
+    void failedWriteKeepsOldFile() throws IOException {
+        Path file = dir.resolve("keep.csv");
+        Files.writeString(file, "old\n");
+
+        boolean written = CSVWriter.write(file.toString(), out -> {
+            out.writeRow("new");
+            throw new IOException("disk full");
+        });
+
+        assertFalse(written);
+        assertEquals("old\n", Files.readString(file));
+        try (var left = Files.list(dir)) {
+            assertEquals(1, left.count());
+        }
+    }
+
+    @Test
+    void parseSkipsBlankLinesAndCountsLines() throws IOException {
+        List<Long> lines = new ArrayList<>();
+        List<String> first = new ArrayList<>();
+        CSVReader.parse(new StringReader("a,b\n\n\"c\nd\",e\r\nf,g\n"), row -> {
+            lines.add(row.getLineNumber());
+            first.add(row.get(0));
+        });
+
+        assertEquals(List.of("a", "c\nd", "f"), first);
+        assertEquals(List.of(1L, 3L, 5L), lines);
+    }
+}
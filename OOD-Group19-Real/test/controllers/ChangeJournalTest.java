@@ -0,0 +1,128 @@
+package controllers;
+
+import Model.Timetable.ScheduledSession;
+import Model.Timetable.Timeslot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that session changes appended to a journal are replayed into the same
+ * timetable, for both the list and the columnar loader, and that a journal
+ * which does not belong to its CSV file is never applied.
+ */
+class ChangeJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private String file;
+    private DataManager data;
+
+    @BeforeEach
+    void copySampleData() throws IOException {
+        for (String name : new String[]{"modules.csv", "rooms.csv", "lecturers.csv"}) {
+            Files.copy(Paths.get("data", name), dir.resolve(name));
+        }
+        file = dir.resolve("sessions.csv").toString();
+        Files.copy(Paths.get("data", "generated_timetable.csv"), Paths.get(file));
+
+        data = load();
+        data.replaceSessions(data.loadSessions(file));
+    }
+
+    @Test
+    void replaysRemoveUpdateAndAdd() throws IOException {
+        ScheduledSession first = data.removeSession(3);
+        data.journalSessionRemoved(file, first); // the file is written in full the first time
+        assertFalse(journal().toFile().exists());
+
+        data.journalSessionRemoved(file, data.removeSession(10));
+
+        ScheduledSession old = data.removeSession(0);
+        data.addSession(new ScheduledSession(old.getModule(), old.getLecturer(), old.getRoom(),
+                new Timeslot("FRI", 16, 1), "ALL"));
+        data.journalSessionUpdated(file, old);
+
+        ScheduledSession copied = data.sessions.get(5);
+        data.addSession(new ScheduledSession(copied.getModule(), copied.getLecturer(), copied.getRoom(),
+                new Timeslot("THU", 17, 1), "G1"));
+        data.journalSessionAdded(file);
+
+        List<String> journal = Files.readAllLines(journal());
+        assertTrue(journal.get(0).startsWith("BASE,"));
+        assertEquals(4, journal.size());
+
+        assertEquals(rows(data.sessions), rows(load().loadSessions(file)));
+        assertEquals(rows(data.sessions), rows(load().loadSessionTable(file).toList()));
+    }
+
+    @Test
+    void removeOfDuplicateRowTakesTheFirstMatch() throws IOException {
+        ScheduledSession s = data.sessions.get(2);
+        data.addSession(s);
+        data.journalSessionAdded(file);
+
+        data.journalSessionRemoved(file, data.removeSession(2));
+
+        assertEquals(rows(data.sessions), rows(load().loadSessions(file)));
+    }
+
+    @Test
+    void ignoresJournalOfOlderBaseFile() throws IOException {
+        data.journalSessionRemoved(file, data.removeSession(0));
+        data.journalSessionRemoved(file, data.removeSession(0));
+        byte[] stale = Files.readAllBytes(journal());
+
+        data.compactJournals();
+        Files.write(journal(), stale);
+        assertEquals(rows(data.sessions), rows(load().loadSessions(file)));
+
+        // the next change starts a new journal instead of appending to the stale one
+        data.journalSessionRemoved(file, data.removeSession(0));
+        assertEquals(2, Files.readAllLines(journal()).size());
+        assertEquals(rows(data.sessions), rows(load().loadSessions(file)));
+    }
+
+    @Test
+    void stopsAtFirstBadEntry() throws IOException {
+        data.journalSessionRemoved(file, data.removeSession(0));
+        data.journalSessionRemoved(file, data.removeSession(0));
+        List<String> before = rows(data.sessions);
+
+        Files.writeString(journal(), "REMOVE,NOPE,MON,9,10,X,Y,ALL\n", StandardOpenOption.APPEND);
+        data.journalSessionRemoved(file, data.removeSession(0));
+
+        assertEquals(before, rows(load().loadSessions(file)));
+    }
+
+    private Path journal() {
+        return ChangeJournal.journalFile(file).toPath();
+    }
+
+    private DataManager load() {
+        DataManager d = new DataManager();
+        d.loadModules(dir.resolve("modules.csv").toString());
+        d.loadRooms(dir.resolve("rooms.csv").toString());
+        d.loadLecturers(dir.resolve("lecturers.csv").toString());
+        return d;
+    }
+
+    private static List<String> rows(List<ScheduledSession> sessions) {
+        List<String> rows = new ArrayList<>();
+        for (ScheduledSession s : sessions) rows.add(String.join(",", DataManager.sessionFields("", s)));
+        return rows;
+    }
+}
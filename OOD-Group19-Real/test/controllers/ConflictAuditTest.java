@@ -0,0 +1,101 @@
+package controllers;
+
+import Model.Academic.Module;
+import Model.People.Lecturer;
+import Model.Room.Room;
+import Model.Timetable.Cohorts;
+import Model.Timetable.ScheduledSession;
+import Model.Timetable.SessionTable;
+import Model.Timetable.Timeslot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the sweep based audit against a scan of every pair of sessions.
+ */
+class ConflictAuditTest {
+
+    private static final String[] DAYS = {"MON", "TUE", "WED", "THU", "FRI"};
+    private static final String[] GROUPS = {null, "ALL", "G1", "G2"};
+
+    private final Module[] modules = new Module[6];
+    private final Lecturer[] lecturers = new Lecturer[4];
+    private final Room[] rooms = new Room[4];
+
+    ConflictAuditTest() {
+        for (int i = 0; i < modules.length; i++) {
+            modules[i] = new Module("Module " + i, "CA10" + i, "LM12" + (i % 2), 1 + i / 3, 1, 2, 1, 1);
+        }
+        for (int i = 0; i < lecturers.length; i++) {
+            lecturers[i] = new Lecturer("CA-L" + i, "Lecturer " + i, "ca" + i + "@ul.ie", null, "CSIS");
+        }
+        for (int i = 0; i < rooms.length; i++) {
+            rooms[i] = new Room("CA-R" + i, "Lab", 30, "CSG");
+        }
+    }
+
+    @Test
+    void backToBackSessionsDoNotClash() {
+        List<ScheduledSession> sessions = List.of(
+                new ScheduledSession(modules[0], lecturers[0], rooms[0], new Timeslot("MON", 9, 2), "G1"),
+                new ScheduledSession(modules[0], lecturers[0], rooms[0], new Timeslot("MON", 11, 1), "G1"),
+                new ScheduledSession(modules[0], lecturers[0], rooms[0], new Timeslot("TUE", 9, 1), "G1"));
+
+        ConflictAudit audit = new ConflictAudit(sessions);
+        assertTrue(audit.getRoomConflicts().isEmpty());
+        assertTrue(audit.getLecturerConflicts().isEmpty());
+        assertTrue(audit.getCohortConflicts().isEmpty());
+    }
+
+    @Test
+    void matchesPairwiseScanOnRandomTimetables() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 300; trial++) {
+            List<ScheduledSession> sessions = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                sessions.add(new ScheduledSession(modules[random.nextInt(modules.length)],
+                        lecturers[random.nextInt(lecturers.length)],
+                        rooms[random.nextInt(rooms.length)],
+                        new Timeslot(DAYS[random.nextInt(DAYS.length)], 9 + random.nextInt(8), 1 + random.nextInt(2)),
+                        GROUPS[random.nextInt(GROUPS.length)]));
+            }
+
+            List<String> room = pairwise(sessions, "ROOM CONFLICT: ", (a, b) -> a.getRoom() == b.getRoom());
+            List<String> lecturer = pairwise(sessions, "LECTURER CONFLICT: ",
+                    (a, b) -> a.getLecturer() == b.getLecturer());
+            List<String> cohort = pairwise(sessions, "COHORT CONFLICT: ",
+                    (a, b) -> Cohorts.cohortKey(a.getModule(), a.getGroupKey())
+                            == Cohorts.cohortKey(b.getModule(), b.getGroupKey()));
+
+            for (ConflictAudit audit : List.of(new ConflictAudit(sessions),
+                    new ConflictAudit(SessionTable.of(sessions)))) {
+                assertEquals(room, audit.getRoomConflicts(), "trial " + trial);
+                assertEquals(lecturer, audit.getLecturerConflicts(), "trial " + trial);
+                assertEquals(cohort, audit.getCohortConflicts(), "trial " + trial);
+            }
+        }
+    }
+
+    /** Every overlapping pair that shares something, in list order. */
+    private static List<String> pairwise(List<ScheduledSession> sessions, String label,
+                                         BiPredicate<ScheduledSession, ScheduledSession> shared) {
+        List<String> conflicts = new ArrayList<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            for (int j = i + 1; j < sessions.size(); j++) {
+                ScheduledSession a = sessions.get(i);
+                ScheduledSession b = sessions.get(j);
+                if (shared.test(a, b) && a.getTimeslot().overlaps(b.getTimeslot())) {
+                    conflicts.add(label + a + " <--> " + b);
+                }
+            }
+        }
+        return conflicts;
+    }
+}
@@ -0,0 +1,149 @@
+package controllers;
+
+import Model.People.Credential;
+import Model.People.Lecturer;
+import Model.People.Student;
+import Model.People.User;
+import Model.Timetable.ScheduledSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the CSV files DataManager writes load back into the same users
+ * and sessions, and that plain text passwords are replaced by hashes on load.
+ */
+class DataManagerTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void copySampleData() throws IOException {
+        for (String name : new String[]{"students.csv", "lecturers.csv", "admins.csv",
+                "modules.csv", "rooms.csv", "generated_timetable.csv"}) {
+            Files.copy(Paths.get("data", name), dir.resolve(name));
+        }
+    }
+
+    @Test
+    void hashesPlainTextPasswordsOnLoad() throws IOException {
+        String file = path("students.csv");
+        assertTrue(Files.readString(dir.resolve("students.csv")).contains(",pass123,"));
+
+        DataManager data = new DataManager();
+        data.loadStudents(file);
+
+        String saved = Files.readString(dir.resolve("students.csv"));
+        assertTrue(saved.startsWith("studentId,name,email,passwordHash,"));
+        assertFalse(saved.contains("pass123"));
+
+        Student alice = data.students.get(0);
+        assertTrue(alice.getCredential().matches("pass123"));
+        assertSame(alice, data.getAccounts().authenticate(alice.getEmail(), "pass123"));
+        assertNull(data.getAccounts().authenticate(alice.getEmail(), "wrong"));
+    }
+
+    @Test
+    void roundTripsUsers() {
+        DataManager first = new DataManager();
+        first.loadStudents(path("students.csv"));
+        first.loadLecturers(path("lecturers.csv"));
+        first.loadAdmins(path("admins.csv"));
+
+        DataManager second = new DataManager();
+        second.loadStudents(path("students.csv"));
+        second.loadLecturers(path("lecturers.csv"));
+        second.loadAdmins(path("admins.csv"));
+
+        assertEquals(studentRows(first.students), studentRows(second.students));
+        assertEquals(lecturerRows(first.lecturers), lecturerRows(second.lecturers));
+        assertEquals(userRows(first.admins), userRows(second.admins));
+        assertNotNull(second.getAccounts().authenticate("admin@ul.ie", "admin123"));
+    }
+
+    @Test
+    void journalledUserIsLoadedWithItsHash() {
+        DataManager data = new DataManager();
+        data.loadStudents(path("students.csv"));
+
+        Student added = new Student("99999999", "Dana Walsh, Jr.", "99999999@studentmail.ul.ie",
+                Credential.hash("secret"), "LM121", 2, "G2");
+        data.addStudent(added);
+        data.journalUserAdded(path("students.csv"), added);
+
+        DataManager loaded = new DataManager();
+        loaded.loadStudents(path("students.csv"));
+        assertEquals(studentRows(data.students), studentRows(loaded.students));
+        assertNotNull(loaded.getAccounts().authenticate("99999999@studentmail.ul.ie", "secret"));
+    }
+
+    @Test
+    void roundTripsSessions() {
+        DataManager data = withCatalogue();
+        data.replaceSessions(data.loadSessions(path("generated_timetable.csv")));
+        assertFalse(data.sessions.isEmpty());
+
+        data.saveSessions(path("saved.csv"));
+
+        assertEquals(sessionRows(data.sessions), sessionRows(withCatalogue().loadSessions(path("saved.csv"))));
+    }
+
+    private DataManager withCatalogue() {
+        DataManager data = new DataManager();
+        data.loadModules(path("modules.csv"));
+        data.loadRooms(path("rooms.csv"));
+        data.loadLecturers(path("lecturers.csv"));
+        return data;
+    }
+
+    private String path(String name) {
+        return dir.resolve(name).toString();
+    }
+
+    private static List<String> studentRows(List<Student> students) {
+        List<String> rows = new ArrayList<>();
+        for (Student s : students) {
+            rows.add(String.join("|", s.getId(), s.getName(), s.getEmail(), s.getCredential().encode(),
+                    s.getProgrammeID(), String.valueOf(s.getYear()), s.getGroupId()));
+        }
+        return rows;
+    }
+
+    private static List<String> lecturerRows(List<Lecturer> lecturers) {
+        List<String> rows = new ArrayList<>();
+        for (Lecturer l : lecturers) {
+            rows.add(String.join("|", l.getLecturerId(), l.getName(), l.getEmail(), l.getCredential().encode(),
+                    l.getDepartment()));
+        }
+        return rows;
+    }
+
+    private static List<String> userRows(List<? extends User> users) {
+        List<String> rows = new ArrayList<>();
+        for (User u : users) {
+            rows.add(String.join("|", u.getId(), u.getName(), u.getEmail(), u.getCredential().encode()));
+        }
+        return rows;
+    }
+
+    private static List<String> sessionRows(List<ScheduledSession> sessions) {
+        List<String> rows = new ArrayList<>();
+        for (ScheduledSession s : sessions) rows.add(String.join(",", DataManager.sessionFields("", s)));
+        return rows;
+    }
+}